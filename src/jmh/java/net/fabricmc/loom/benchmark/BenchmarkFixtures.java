@@ -0,0 +1,192 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates deterministic synthetic jars and mappings, so that the benchmarks do not need the network or a Minecraft jar.
+ *
+ * <p>Class {@code i} is named {@code c<i>} in the official namespace, {@code net/minecraft/class_<i>} in intermediary
+ * and {@code net/minecraft/pkg<i % 16>/Class<i>} in named.
+ */
+public final class BenchmarkFixtures {
+	public static final int FIELDS_PER_CLASS = 4;
+	public static final int METHODS_PER_CLASS = 8;
+	public static final int LINES_PER_METHOD = 6;
+	// Line mappings only map every other line, to exercise the nearest line lookup
+	public static final int LINE_MAPPING_STRIDE = 2;
+
+	private BenchmarkFixtures() {
+	}
+
+	public static String officialName(int i) {
+		return "c" + i;
+	}
+
+	public static String intermediaryName(int i) {
+		return "net/minecraft/class_" + i;
+	}
+
+	public static String namedName(int i) {
+		return "net/minecraft/pkg" + (i % 16) + "/Class" + i;
+	}
+
+	/**
+	 * Writes a jar containing classes {@code [from, to)} in the official namespace.
+	 */
+	public static void writeJar(Path jar, int from, int to) throws IOException {
+		try (OutputStream outputStream = Files.newOutputStream(jar);
+				JarOutputStream jarOutputStream = new JarOutputStream(outputStream)) {
+			for (int i = from; i < to; i++) {
+				jarOutputStream.putNextEntry(new JarEntry(officialName(i) + ".class"));
+				jarOutputStream.write(createClass(i));
+				jarOutputStream.closeEntry();
+			}
+
+			jarOutputStream.putNextEntry(new JarEntry("assets/data.json"));
+			jarOutputStream.write("{\"synthetic\": true}".getBytes(StandardCharsets.UTF_8));
+			jarOutputStream.closeEntry();
+		}
+	}
+
+	public static byte[] createClass(int i) {
+		final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, officialName(i), null, "java/lang/Object", null);
+		writer.visitSource(officialName(i) + ".java", null);
+
+		for (int f = 0; f < FIELDS_PER_CLASS; f++) {
+			writer.visitField(Opcodes.ACC_PUBLIC, "f" + f, "I", null, null).visitEnd();
+		}
+
+		int line = 1;
+
+		for (int m = 0; m < METHODS_PER_CLASS; m++) {
+			final MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m" + m, "()V", null, null);
+			method.visitCode();
+
+			for (int l = 0; l < LINES_PER_METHOD; l++) {
+				final Label label = new Label();
+				method.visitLabel(label);
+				method.visitLineNumber(line++, label);
+				method.visitInsn(Opcodes.ICONST_0);
+				method.visitInsn(Opcodes.POP);
+			}
+
+			method.visitInsn(Opcodes.RETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Writes tiny v2 mappings from official to intermediary for classes {@code [0, count)}.
+	 */
+	public static void writeIntermediaryMappings(Path path, int count) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write("tiny\t2\t0\tofficial\tintermediary\n");
+
+			for (int i = 0; i < count; i++) {
+				writer.write("c\t%s\t%s\n".formatted(officialName(i), intermediaryName(i)));
+
+				for (int f = 0; f < FIELDS_PER_CLASS; f++) {
+					writer.write("\tf\tI\tf%d\tfield_%d_%d\n".formatted(f, i, f));
+				}
+
+				for (int m = 0; m < METHODS_PER_CLASS; m++) {
+					writer.write("\tm\t()V\tm%d\tmethod_%d_%d\n".formatted(m, i, m));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes tiny v2 mappings from intermediary to named for classes {@code [0, count)}, as would be provided by a mappings jar.
+	 */
+	public static void writeNamedMappings(Path path, int count) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write("tiny\t2\t0\tintermediary\tnamed\n");
+
+			for (int i = 0; i < count; i++) {
+				writer.write("c\t%s\t%s\n".formatted(intermediaryName(i), namedName(i)));
+				writer.write("\tc\tA synthetic class used for benchmarking.\n");
+
+				for (int f = 0; f < FIELDS_PER_CLASS; f++) {
+					writer.write("\tf\tI\tfield_%d_%d\tfield%d\n".formatted(i, f, f));
+				}
+
+				for (int m = 0; m < METHODS_PER_CLASS; m++) {
+					writer.write("\tm\t()V\tmethod_%d_%d\tmethod%d\n".formatted(i, m, m));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a line map in the format produced by the decompilers for classes {@code [0, count)}.
+	 */
+	public static void writeLineMap(Path path, int count) throws IOException {
+		final int maxLine = METHODS_PER_CLASS * LINES_PER_METHOD;
+
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < count; i++) {
+				writer.write("%s\t%d\t%d\n".formatted(officialName(i), maxLine, maxLine + 10));
+
+				for (int line = 1; line <= maxLine; line += LINE_MAPPING_STRIDE) {
+					writer.write("\t%d\t%d\n".formatted(line, line + 10));
+				}
+			}
+		}
+	}
+
+	public static void deleteRecursively(Path path) throws IOException {
+		if (Files.notExists(path)) {
+			return;
+		}
+
+		try (Stream<Path> walk = Files.walk(path)) {
+			for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(p);
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.fabricmc.loom.decompilers.LineNumberRemapper;
+import net.fabricmc.loom.util.FileSystemUtil;
+
+/**
+ * Reads a line map and applies it to a jar, as done after decompiling in genSources.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LineNumberRemapperBenchmark {
+	@Param("2000")
+	public int classCount;
+
+	private Path tempDir;
+	private Path inputJar;
+	private Path lineMap;
+	private Path outputJar;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		tempDir = Files.createTempDirectory("loom-jmh");
+		inputJar = tempDir.resolve("input.jar");
+		lineMap = tempDir.resolve("input.lmap");
+		outputJar = tempDir.resolve("output.jar");
+
+		BenchmarkFixtures.writeJar(inputJar, 0, classCount);
+		BenchmarkFixtures.writeLineMap(lineMap, classCount);
+	}
+
+	@Setup(Level.Invocation)
+	public void deleteOutput() throws IOException {
+		Files.deleteIfExists(outputJar);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkFixtures.deleteRecursively(tempDir);
+	}
+
+	@Benchmark
+	public void process() throws IOException {
+		final LineNumberRemapper remapper = new LineNumberRemapper();
+		remapper.readMappings(lineMap.toFile());
+
+		try (FileSystemUtil.Delegate inFs = FileSystemUtil.getJarFileSystem(inputJar.toFile(), true);
+				FileSystemUtil.Delegate outFs = FileSystemUtil.getJarFileSystem(outputJar.toFile(), true)) {
+			remapper.process(null, inFs.get().getPath("/"), outFs.get().getPath("/"));
+		}
+	}
+
+	@Benchmark
+	public void processJar() throws IOException {
+		final LineNumberRemapper remapper = new LineNumberRemapper();
+		remapper.readMappings(lineMap.toFile());
+		remapper.processJar(null, inputJar, outputJar);
+	}
+}
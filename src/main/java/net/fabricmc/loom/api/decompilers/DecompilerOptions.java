@@ -59,12 +59,25 @@ public abstract class DecompilerOptions implements Named {
 	 */
 	public abstract Property<Integer> getMaxThreads();
 
+	/**
+	 * Number of forked JVMs to split the decompilation across, each decompiling a share of the packages with an equal
+	 * share of {@link #getTotalMemory()} and {@link #getMaxThreads()}. Gradle's max workers must also allow this many workers.
+	 */
+	public abstract Property<Integer> getShards();
+
+	/**
+	 * Memory shared between all of the forked JVMs in megabytes, when decompiling with more than one shard.
+	 */
+	public abstract Property<Long> getTotalMemory();
+
 	public DecompilerOptions() {
 		getDecompilerClassName().finalizeValueOnRead();
 		getClasspath().finalizeValueOnRead();
 		getOptions().finalizeValueOnRead();
 		getMemory().convention(4096L).finalizeValueOnRead();
 		getMaxThreads().convention(Runtime.getRuntime().availableProcessors()).finalizeValueOnRead();
+		getShards().convention(1).finalizeValueOnRead();
+		getTotalMemory().convention(getMemory()).finalizeValueOnRead();
 	}
 
 	public String getFormattedName() {
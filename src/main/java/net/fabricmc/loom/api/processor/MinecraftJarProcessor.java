@@ -24,11 +24,14 @@
 
 package net.fabricmc.loom.api.processor;
 
+import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Set;
 
 import org.gradle.api.Named;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
 
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
@@ -38,6 +41,15 @@ public interface MinecraftJarProcessor<S extends MinecraftJarProcessor.Spec> ext
 
 	void processJar(Path jar, S spec, ProcessorContext context) throws IOException;
 
+	/**
+	 * Processors that only transform classes can return a {@link ClassTransformer}.
+	 * The transformers of all such processors are applied together in a single pass over the jar, and {@link #processJar} is not called.
+	 */
+	@Nullable
+	default ClassTransformer createClassTransformer(S spec, ProcessorContext context) throws IOException {
+		return null;
+	}
+
 	@Nullable
 	default MappingsProcessor<S> processMappings() {
 		return null;
@@ -45,6 +57,28 @@ public interface MinecraftJarProcessor<S extends MinecraftJarProcessor.Spec> ext
 
 	interface Spec {
 		// Must make sure hashCode is correctly implemented.
+
+		/**
+		 * Writes a canonical representation of this spec, used to compute the cache key stored in the processed jar.
+		 * The output must be stable across JVMs and machines, so should be derived from the contents of the inputs rather than object hash codes.
+		 *
+		 * <p>Defaults to writing {@link #hashCode()}.
+		 */
+		default void writeCacheKey(DataOutput output) throws IOException {
+			output.writeInt(hashCode());
+		}
+	}
+
+	interface ClassTransformer {
+		/**
+		 * @return the internal names of the classes to transform
+		 */
+		Set<String> getTargets();
+
+		/**
+		 * Called for each target class, possibly from multiple threads at once.
+		 */
+		ClassVisitor createClassVisitor(String className, ClassVisitor classVisitor);
 	}
 
 	interface MappingsProcessor<S> {
@@ -38,6 +38,7 @@ import com.google.gson.JsonObject;
 import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
 
+import net.fabricmc.loom.util.JarAssembler;
 import net.fabricmc.loom.util.Pair;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
@@ -54,46 +55,73 @@ public class JarNester {
 		try {
 			ZipUtils.add(modJar.toPath(), jars.stream().map(file -> {
 				try {
-					return new Pair<>("META-INF/jars/" + file.getName(), Files.readAllBytes(file.toPath()));
+					return new Pair<>(getNestedJarPath(file), Files.readAllBytes(file.toPath()));
 				} catch (IOException e) {
 					throw new UncheckedIOException(e);
 				}
 			}).collect(Collectors.toList()));
 
-			int count = ZipUtils.transformJson(JsonObject.class, modJar.toPath(), Stream.of(new Pair<>("fabric.mod.json", json -> {
-				JsonArray nestedJars = json.getAsJsonArray("jars");
+			int count = ZipUtils.transformJson(JsonObject.class, modJar.toPath(), Stream.of(new Pair<>("fabric.mod.json", json -> addNestedJars(json, jars, modJar.getName(), logger))));
 
-				if (nestedJars == null || !json.has("jars")) {
-					nestedJars = new JsonArray();
-				}
+			Preconditions.checkState(count > 0, "Failed to transform fabric.mod.json");
+		} catch (IOException e) {
+			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+		}
+	}
 
-				for (File file : jars) {
-					String nestedJarPath = "META-INF/jars/" + file.getName();
-					Preconditions.checkArgument(FabricModJsonFactory.isModJar(file), "Cannot nest none mod jar: " + file.getName());
+	public static void nestJars(Collection<File> jars, JarAssembler modJar, String modJarName, Logger logger) {
+		if (jars.isEmpty()) {
+			logger.debug("Nothing to nest into " + modJarName);
+			return;
+		}
 
-					for (JsonElement nestedJar : nestedJars) {
-						JsonObject jsonObject = nestedJar.getAsJsonObject();
+		Preconditions.checkArgument(modJar.contains("fabric.mod.json"), "Cannot nest jars into none mod jar " + modJarName);
 
-						if (jsonObject.has("file") && jsonObject.get("file").getAsString().equals(nestedJarPath)) {
-							throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
-						}
-					}
+		try {
+			for (File file : jars) {
+				modJar.add(getNestedJarPath(file), Files.readAllBytes(file.toPath()));
+			}
 
-					JsonObject jsonObject = new JsonObject();
-					jsonObject.addProperty("file", nestedJarPath);
-					nestedJars.add(jsonObject);
+			boolean transformed = modJar.transformJson(JsonObject.class, "fabric.mod.json", json -> addNestedJars(json, jars, modJarName, logger));
 
-					logger.debug("Nested " + nestedJarPath + " into " + modJar.getName());
-				}
+			Preconditions.checkState(transformed, "Failed to transform fabric.mod.json");
+		} catch (IOException e) {
+			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJarName, e);
+		}
+	}
 
-				json.add("jars", nestedJars);
+	private static JsonObject addNestedJars(JsonObject json, Collection<File> jars, String modJarName, Logger logger) {
+		JsonArray nestedJars = json.getAsJsonArray("jars");
 
-				return json;
-			})));
+		if (nestedJars == null || !json.has("jars")) {
+			nestedJars = new JsonArray();
+		}
 
-			Preconditions.checkState(count > 0, "Failed to transform fabric.mod.json");
-		} catch (IOException e) {
-			throw new java.io.UncheckedIOException("Failed to nest jars into " + modJar.getName(), e);
+		for (File file : jars) {
+			String nestedJarPath = getNestedJarPath(file);
+			Preconditions.checkArgument(FabricModJsonFactory.isModJar(file), "Cannot nest none mod jar: " + file.getName());
+
+			for (JsonElement nestedJar : nestedJars) {
+				JsonObject jsonObject = nestedJar.getAsJsonObject();
+
+				if (jsonObject.has("file") && jsonObject.get("file").getAsString().equals(nestedJarPath)) {
+					throw new IllegalStateException("Cannot nest 2 jars at the same path: " + nestedJarPath);
+				}
+			}
+
+			JsonObject jsonObject = new JsonObject();
+			jsonObject.addProperty("file", nestedJarPath);
+			nestedJars.add(jsonObject);
+
+			logger.debug("Nested " + nestedJarPath + " into " + modJarName);
 		}
+
+		json.add("jars", nestedJars);
+
+		return json;
+	}
+
+	private static String getNestedJarPath(File file) {
+		return "META-INF/jars/" + file.getName();
 	}
 }
@@ -24,6 +24,7 @@
 
 package net.fabricmc.loom.configuration.accesswidener;
 
+import java.io.DataOutput;
 import java.io.IOException;
 
 import org.jetbrains.annotations.Nullable;
@@ -45,4 +46,9 @@ public interface AccessWidenerEntry {
 	String getSortKey();
 
 	void read(AccessWidenerVisitor visitor, LazyCloseable<TinyRemapper> remapper) throws IOException;
+
+	/**
+	 * Writes a canonical representation of this entry, including a hash of the access widener contents.
+	 */
+	void writeCacheKey(DataOutput output) throws IOException;
 }
@@ -24,6 +24,7 @@
 
 package net.fabricmc.loom.configuration.accesswidener;
 
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
@@ -68,6 +69,12 @@ public record LocalAccessWidenerEntry(Path path, String hash) implements AccessW
 		return "local";
 	}
 
+	@Override
+	public void writeCacheKey(DataOutput output) throws IOException {
+		output.writeUTF(getSortKey());
+		output.writeUTF(hash);
+	}
+
 	@Override
 	public int hashCode() {
 		return hash.hashCode();
@@ -24,6 +24,7 @@
 
 package net.fabricmc.loom.configuration.accesswidener;
 
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -37,6 +38,7 @@ import net.fabricmc.accesswidener.AccessWidenerRemapper;
 import net.fabricmc.accesswidener.AccessWidenerVisitor;
 import net.fabricmc.accesswidener.TransitiveOnlyFilter;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.LazyCloseable;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.ModEnvironment;
@@ -85,6 +87,15 @@ public record ModAccessWidenerEntry(FabricModJson mod, String path, ModEnvironme
 		reader.read(data);
 	}
 
+	@Override
+	public void writeCacheKey(DataOutput output) throws IOException {
+		output.writeUTF(getSortKey());
+		output.writeBoolean(environment.isClient());
+		output.writeBoolean(environment.isServer());
+		output.writeBoolean(transitiveOnly);
+		output.write(Checksum.sha256(readRaw()));
+	}
+
 	private static AccessWidenerRemapper getRemapper(AccessWidenerVisitor visitor, TinyRemapper tinyRemapper) {
 		return new AccessWidenerRemapper(
 				visitor,
@@ -24,6 +24,7 @@
 
 package net.fabricmc.loom.configuration.ifaceinject;
 
+import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -41,9 +42,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.jetbrains.annotations.Nullable;
-import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
-import org.objectweb.asm.ClassWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,9 +50,8 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
+import net.fabricmc.loom.configuration.processors.ClassTransformerPipeline;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.Pair;
-import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.mappingio.tree.MappingTree;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
@@ -95,23 +93,48 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 	}
 
 	public record Spec(List<InjectedInterface> injectedInterfaces) implements MinecraftJarProcessor.Spec {
+		@Override
+		public void writeCacheKey(DataOutput output) throws IOException {
+			output.writeInt(injectedInterfaces.size());
+
+			for (InjectedInterface injectedInterface : injectedInterfaces) {
+				output.writeUTF(injectedInterface.modId());
+				output.writeUTF(injectedInterface.className());
+				output.writeUTF(injectedInterface.ifaceName());
+			}
+		}
 	}
 
 	@Override
 	public void processJar(Path jar, Spec spec, ProcessorContext context) throws IOException {
+		try {
+			ClassTransformerPipeline.apply(jar, List.of(createClassTransformer(spec, context)));
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to apply interface injections to " + jar, e);
+		}
+	}
+
+	@Override
+	public ClassTransformer createClassTransformer(Spec spec, ProcessorContext context) {
 		// Remap from intermediary->named
 		final MemoryMappingTree mappings = context.getMappings();
 		final int intermediaryIndex = mappings.getNamespaceId(MappingsNamespace.INTERMEDIARY.toString());
 		final int namedIndex = mappings.getNamespaceId(MappingsNamespace.NAMED.toString());
-		final List<InjectedInterface> remappedInjectedInterfaces = spec.injectedInterfaces().stream()
+		final Map<String, List<InjectedInterface>> injectedInterfaces = spec.injectedInterfaces().stream()
 				.map(injectedInterface -> remap(injectedInterface, s -> mappings.mapClassName(s, intermediaryIndex, namedIndex)))
-				.toList();
+				.collect(Collectors.groupingBy(injectedInterface -> injectedInterface.className().replaceAll("\\.", "/")));
 
-		try {
-			ZipUtils.transform(jar, getTransformers(remappedInjectedInterfaces));
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to apply interface injections to " + jar, e);
-		}
+		return new ClassTransformer() {
+			@Override
+			public Set<String> getTargets() {
+				return injectedInterfaces.keySet();
+			}
+
+			@Override
+			public ClassVisitor createClassVisitor(String className, ClassVisitor classVisitor) {
+				return new InjectingClassVisitor(Constants.ASM_VERSION, classVisitor, injectedInterfaces.get(className));
+			}
+		};
 	}
 
 	private InjectedInterface remap(InjectedInterface in, Function<String, String> remapper) {
@@ -122,27 +145,6 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 		);
 	}
 
-	private List<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> getTransformers(List<InjectedInterface> injectedInterfaces) {
-		return injectedInterfaces.stream()
-				.collect(Collectors.groupingBy(InjectedInterface::className))
-				.entrySet()
-				.stream()
-				.map(entry -> {
-					final String zipEntry = entry.getKey().replaceAll("\\.", "/") + ".class";
-					return new Pair<>(zipEntry, getTransformer(entry.getValue()));
-				}).toList();
-	}
-
-	private ZipUtils.UnsafeUnaryOperator<byte[]> getTransformer(List<InjectedInterface> injectedInterfaces) {
-		return input -> {
-			final ClassReader reader = new ClassReader(input);
-			final ClassWriter writer = new ClassWriter(0);
-			final ClassVisitor classVisitor = new InjectingClassVisitor(Constants.ASM_VERSION, writer, injectedInterfaces);
-			reader.accept(classVisitor, 0);
-			return writer.toByteArray();
-		};
-	}
-
 	@Override
 	public MappingsProcessor<Spec> processMappings() {
 		return (mappings, spec, context) -> {
@@ -223,8 +225,8 @@ public abstract class InterfaceInjectionProcessor implements MinecraftJarProcess
 	private static class InjectingClassVisitor extends ClassVisitor {
 		private final List<InjectedInterface> injectedInterfaces;
 
-		InjectingClassVisitor(int asmVersion, ClassWriter writer, List<InjectedInterface> injectedInterfaces) {
-			super(asmVersion, writer);
+		InjectingClassVisitor(int asmVersion, ClassVisitor classVisitor, List<InjectedInterface> injectedInterfaces) {
+			super(asmVersion, classVisitor);
 			this.injectedInterfaces = injectedInterfaces;
 		}
 
@@ -0,0 +1,108 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.processors;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+
+import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
+import net.fabricmc.loom.util.FileSystemUtil;
+
+/**
+ * Applies any number of {@link MinecraftJarProcessor.ClassTransformer}s to a jar in a single pass.
+ * Each class is read and written once, with the visitors of all transformers targeting it chained in order.
+ * Classes are transformed in parallel.
+ */
+public final class ClassTransformerPipeline {
+	private ClassTransformerPipeline() {
+	}
+
+	/**
+	 * @return the number of classes transformed
+	 */
+	public static int apply(Path jar, List<MinecraftJarProcessor.ClassTransformer> transformers) throws IOException {
+		final Set<String> targets = new HashSet<>();
+
+		for (MinecraftJarProcessor.ClassTransformer transformer : transformers) {
+			targets.addAll(transformer.getTargets());
+		}
+
+		if (targets.isEmpty()) {
+			return 0;
+		}
+
+		try (FileSystemUtil.Delegate fs = FileSystemUtil.getJarFileSystem(jar, false)) {
+			final List<String> existingTargets = targets.stream()
+					.filter(className -> Files.exists(fs.getPath(className + ".class")))
+					.toList();
+
+			existingTargets.parallelStream().forEach(className -> {
+				final Path path = fs.getPath(className + ".class");
+
+				try {
+					Files.write(path, transform(className, Files.readAllBytes(path), transformers));
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to transform " + className, e);
+				}
+			});
+
+			return existingTargets.size();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static byte[] transform(String className, byte[] input, List<MinecraftJarProcessor.ClassTransformer> transformers) {
+		final ClassReader reader = new ClassReader(input);
+		final ClassWriter writer = new ClassWriter(0);
+		final List<MinecraftJarProcessor.ClassTransformer> applicable = new ArrayList<>();
+
+		for (MinecraftJarProcessor.ClassTransformer transformer : transformers) {
+			if (transformer.getTargets().contains(className)) {
+				applicable.add(transformer);
+			}
+		}
+
+		// Build the chain backwards, so that the transformers visit the class in the order they were given.
+		ClassVisitor classVisitor = writer;
+
+		for (int i = applicable.size() - 1; i >= 0; i--) {
+			classVisitor = applicable.get(i).createClassVisitor(className, classVisitor);
+		}
+
+		reader.accept(classVisitor, 0);
+		return writer.toByteArray();
+	}
+}
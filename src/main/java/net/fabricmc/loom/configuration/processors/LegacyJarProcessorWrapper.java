@@ -24,6 +24,7 @@
 
 package net.fabricmc.loom.configuration.processors;
 
+import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.file.Path;
 
@@ -67,5 +68,9 @@ public abstract class LegacyJarProcessorWrapper implements MinecraftJarProcessor
 	}
 
 	public record Spec(String cacheValue) implements MinecraftJarProcessor.Spec {
+		@Override
+		public void writeCacheKey(DataOutput output) throws IOException {
+			output.writeUTF(cacheValue);
+		}
 	}
 }
@@ -24,18 +24,23 @@
 
 package net.fabricmc.loom.configuration.processors;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
-import java.util.stream.Collectors;
 
 import org.gradle.api.Project;
 import org.jetbrains.annotations.Nullable;
@@ -47,14 +52,19 @@ import net.fabricmc.loom.api.processor.MappingProcessorContext;
 import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class MinecraftJarProcessorManager {
 	private static final String CACHE_VALUE_FILE_PATH = "META-INF/Loom-Jar-Processor-Cache";
 	private static final Logger LOGGER = LoggerFactory.getLogger(MinecraftJarProcessorManager.class);
+	// Bump when the format of the cache key changes
+	private static final int CACHE_KEY_VERSION = 1;
 
 	private final List<ProcessorEntry<?>> jarProcessors;
+	@Nullable
+	private String cacheValue;
 
 	private MinecraftJarProcessorManager(List<ProcessorEntry<?>> jarProcessors) {
 		this.jarProcessors = Collections.unmodifiableList(jarProcessors);
@@ -94,11 +104,39 @@ public final class MinecraftJarProcessorManager {
 		return new MinecraftJarProcessorManager(entries);
 	}
 
-	private String getCacheValue() {
-		return jarProcessors.stream()
-				.sorted(Comparator.comparing(ProcessorEntry::name))
-				.map(ProcessorEntry::cacheValue)
-				.collect(Collectors.joining("::"));
+	/**
+	 * @return a sha256 digest of the processor names and the canonical form of their specs
+	 */
+	public String getCacheValue() {
+		if (cacheValue == null) {
+			final MessageDigest digest = createDigest();
+
+			try (DataOutputStream output = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+				output.writeInt(CACHE_KEY_VERSION);
+
+				for (ProcessorEntry<?> entry : jarProcessors.stream().sorted(Comparator.comparing(ProcessorEntry::name)).toList()) {
+					final byte[] cacheKey = entry.cacheKey();
+
+					output.writeUTF(entry.name());
+					output.writeInt(cacheKey.length);
+					output.write(cacheKey);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to compute jar processor cache key", e);
+			}
+
+			cacheValue = Checksum.toHex(digest.digest());
+		}
+
+		return cacheValue;
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	private String getDebugString() {
@@ -108,6 +146,12 @@ public final class MinecraftJarProcessorManager {
 			sj.add(jarProcessor.name() + ":");
 			sj.add("\tHash: " + jarProcessor.hashCode());
 			sj.add("\tStr: " + jarProcessor.toString());
+
+			try {
+				sj.add("\tCache key: " + Checksum.toHex(Checksum.sha256(jarProcessor.cacheKey())));
+			} catch (IOException e) {
+				sj.add("\tCache key: " + e);
+			}
 		}
 
 		return sj.toString();
@@ -150,17 +194,48 @@ public final class MinecraftJarProcessorManager {
 	}
 
 	public void processJar(Path jar, ProcessorContext context) throws IOException {
+		// Consecutive processors that provide class transformers are applied together in a single pass over the jar.
+		final List<MinecraftJarProcessor.ClassTransformer> pendingTransformers = new ArrayList<>();
+		final List<String> pendingNames = new ArrayList<>();
+
 		for (ProcessorEntry<?> entry : jarProcessors) {
 			try {
+				final MinecraftJarProcessor.ClassTransformer transformer = entry.createClassTransformer(context);
+
+				if (transformer != null) {
+					pendingTransformers.add(transformer);
+					pendingNames.add(entry.name());
+					continue;
+				}
+
+				applyClassTransformers(jar, pendingTransformers, pendingNames);
 				entry.processJar(jar, context);
 			} catch (IOException e) {
 				throw new IOException("Failed to process jar when running jar processor: %s".formatted(entry.name()), e);
 			}
 		}
 
+		applyClassTransformers(jar, pendingTransformers, pendingNames);
+
 		ZipUtils.add(jar, CACHE_VALUE_FILE_PATH, getCacheValue());
 	}
 
+	private static void applyClassTransformers(Path jar, List<MinecraftJarProcessor.ClassTransformer> transformers, List<String> names) throws IOException {
+		if (transformers.isEmpty()) {
+			return;
+		}
+
+		try {
+			int count = ClassTransformerPipeline.apply(jar, transformers);
+			LOGGER.debug("Transformed {} classes with jar processors: {}", count, names);
+		} catch (IOException e) {
+			throw new IOException("Failed to process jar when running jar processors: %s".formatted(String.join(", ", names)), e);
+		}
+
+		transformers.clear();
+		names.clear();
+	}
+
 	public boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
 		boolean transformed = false;
 
@@ -183,6 +258,11 @@ public final class MinecraftJarProcessorManager {
 			processor().processJar(jar, spec, context);
 		}
 
+		@Nullable
+		private MinecraftJarProcessor.ClassTransformer createClassTransformer(ProcessorContext context) throws IOException {
+			return processor().createClassTransformer(spec, context);
+		}
+
 		private boolean processMappings(MemoryMappingTree mappings, MappingProcessorContext context) {
 			if (mappingsProcessor() == null) {
 				return false;
@@ -195,8 +275,14 @@ public final class MinecraftJarProcessorManager {
 			return processor.getName();
 		}
 
-		private String cacheValue() {
-			return processor.getName() + ":" + spec.hashCode();
+		private byte[] cacheKey() throws IOException {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+			try (DataOutputStream output = new DataOutputStream(bytes)) {
+				spec.writeCacheKey(output);
+			}
+
+			return bytes.toByteArray();
 		}
 	}
 }
@@ -25,6 +25,7 @@
 package net.fabricmc.loom.configuration.processors;
 
 import java.io.ByteArrayInputStream;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -45,6 +46,7 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.api.processor.MinecraftJarProcessor;
 import net.fabricmc.loom.api.processor.ProcessorContext;
 import net.fabricmc.loom.api.processor.SpecContext;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.mappingio.MappingReader;
@@ -86,6 +88,15 @@ public abstract class ModJavadocProcessor implements MinecraftJarProcessor<ModJa
 	}
 
 	public record Spec(List<ModJavadoc> javadocs) implements MinecraftJarProcessor.Spec {
+		@Override
+		public void writeCacheKey(DataOutput output) throws IOException {
+			output.writeInt(javadocs.size());
+
+			for (ModJavadoc javadoc : javadocs) {
+				output.writeUTF(javadoc.modId());
+				output.writeUTF(javadoc.hash());
+			}
+		}
 	}
 
 	@Override
@@ -104,7 +115,10 @@ public abstract class ModJavadocProcessor implements MinecraftJarProcessor<ModJa
 		};
 	}
 
-	public record ModJavadoc(String modId, MemoryMappingTree mappingTree) {
+	/**
+	 * @param hash the sha256 of the javadoc mappings as provided by the mod
+	 */
+	public record ModJavadoc(String modId, MemoryMappingTree mappingTree, String hash) {
 		@Nullable
 		public static ModJavadoc create(FabricModJson fabricModJson) {
 			final String modId = fabricModJson.getId();
@@ -116,9 +130,11 @@ public abstract class ModJavadocProcessor implements MinecraftJarProcessor<ModJa
 
 			final String javaDocPath = customElement.getAsString();
 			final MemoryMappingTree mappings = new MemoryMappingTree();
+			final String hash;
 
 			try {
 				final byte[] data = fabricModJson.getSource().read(javaDocPath);
+				hash = Checksum.toHex(Checksum.sha256(data));
 
 				try (Reader reader = new InputStreamReader(new ByteArrayInputStream(data))) {
 					MappingReader.read(reader, mappings);
@@ -135,7 +151,7 @@ public abstract class ModJavadocProcessor implements MinecraftJarProcessor<ModJa
 				throw new IllegalStateException("Javadoc provided by mod (%s) must not contain any dst names".formatted(modId));
 			}
 
-			return new ModJavadoc(modId, mappings);
+			return new ModJavadoc(modId, mappings, hash);
 		}
 
 		public void apply(MemoryMappingTree target) {
@@ -24,10 +24,8 @@
 
 package net.fabricmc.loom.configuration.providers.mappings;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -42,9 +40,9 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.intermediate.IntermediateMappingsProvider;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
+import net.fabricmc.loom.util.BinaryMappingCache;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.adapter.MappingNsCompleter;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
@@ -80,6 +78,11 @@ public final class IntermediateMappingsService implements SharedService {
 			throw new UncheckedIOException("Failed to provide intermediate mappings", e);
 		}
 
+		return create(intermediaryTiny);
+	}
+
+	@VisibleForTesting
+	public static IntermediateMappingsService create(Path intermediaryTiny) {
 		return new IntermediateMappingsService(intermediaryTiny);
 	}
 
@@ -89,9 +92,7 @@ public final class IntermediateMappingsService implements SharedService {
 		try {
 			MappingNsCompleter nsCompleter = new MappingNsCompleter(tree, Collections.singletonMap(MappingsNamespace.NAMED.toString(), MappingsNamespace.INTERMEDIARY.toString()), true);
 
-			try (BufferedReader reader = Files.newBufferedReader(getIntermediaryTiny(), StandardCharsets.UTF_8)) {
-				MappingReader.read(reader, nsCompleter);
-			}
+			BinaryMappingCache.read(getIntermediaryTiny(), nsCompleter);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read intermediary mappings", e);
 		}
@@ -49,6 +49,7 @@ import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
+import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.mappingio.adapter.MappingDstNsReorder;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
@@ -75,6 +76,7 @@ public class LayeredMappingsDependency implements SelfResolvingDependency, FileC
 	public Set<File> resolve() {
 		Path mappingsDir = mappingContext.minecraftProvider().dir("layered").toPath();
 		Path mappingsFile = mappingsDir.resolve(String.format("%s.%s-%s.tiny", GROUP, MODULE, getVersion()));
+		Path layerCacheDir = mappingsDir.resolve("layer_cache");
 
 		if (!Files.exists(mappingsFile) || mappingContext.refreshDeps()) {
 			try {
@@ -83,7 +85,11 @@ public class LayeredMappingsDependency implements SelfResolvingDependency, FileC
 
 				Files.deleteIfExists(mappingsFile);
 
-				writeMapping(processor, layers, mappingsFile);
+				if (mappingContext.refreshDeps() && Files.exists(layerCacheDir)) {
+					Files.walkFileTree(layerCacheDir, new DeletingFileVisitor());
+				}
+
+				writeMapping(processor, layers, mappingsFile, layerCacheDir);
 				writeSignatureFixes(processor, layers, mappingsFile);
 				writeUnpickData(processor, layers, mappingsFile);
 			} catch (IOException e) {
@@ -94,8 +100,8 @@ public class LayeredMappingsDependency implements SelfResolvingDependency, FileC
 		return Collections.singleton(mappingsFile.toFile());
 	}
 
-	private void writeMapping(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile) throws IOException {
-		MemoryMappingTree mappings = processor.getMappings(layers);
+	private void writeMapping(LayeredMappingsProcessor processor, List<MappingLayer> layers, Path mappingsFile, Path layerCacheDir) throws IOException {
+		MemoryMappingTree mappings = processor.getMappings(layers, layerCacheDir, mappingContext);
 
 		try (Writer writer = new StringWriter()) {
 			Tiny2Writer tiny2Writer = new Tiny2Writer(writer, false);
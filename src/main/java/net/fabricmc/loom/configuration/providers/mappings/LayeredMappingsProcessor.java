@@ -25,21 +25,27 @@
 package net.fabricmc.loom.configuration.providers.mappings;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.jetbrains.annotations.Nullable;
 
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.MappingLayer;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.api.mappings.layered.spec.FileSpec;
 import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec;
 import net.fabricmc.loom.configuration.providers.mappings.extras.signatures.SignatureFixesLayer;
 import net.fabricmc.loom.configuration.providers.mappings.extras.unpick.UnpickLayer;
+import net.fabricmc.loom.util.BinaryMappingCache;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
@@ -71,9 +77,36 @@ public class LayeredMappingsProcessor {
 	}
 
 	public MemoryMappingTree getMappings(List<MappingLayer> layers) throws IOException {
+		return getMappings(layers, null, null);
+	}
+
+	/**
+	 * Builds the layered mappings, optionally caching the result of each layer.
+	 *
+	 * @param cacheDir when not null, the tree after each layer is stored in this directory, keyed by the spec of that layer and every layer before it.
+	 * Only the layers after the last cached one are visited, so changing a layer only rebuilds it and the layers above it.
+	 * @param context used to resolve the input files of the layers for their keys, only required with a cache dir
+	 */
+	public MemoryMappingTree getMappings(List<MappingLayer> layers, @Nullable Path cacheDir, @Nullable MappingContext context) throws IOException {
 		MemoryMappingTree mappingTree = new MemoryMappingTree();
+		final List<Path> snapshots = cacheDir != null ? getLayerSnapshots(cacheDir, Objects.requireNonNull(context, "context")) : null;
+		int firstLayer = 0;
 
-		for (MappingLayer layer : layers) {
+		if (snapshots != null) {
+			if (snapshots.size() != layers.size()) {
+				throw new IllegalStateException("Expected %d layers, but got %d".formatted(snapshots.size(), layers.size()));
+			}
+
+			for (int i = snapshots.size() - 1; i >= 0; i--) {
+				if (BinaryMappingCache.readSnapshot(snapshots.get(i), mappingTree)) {
+					firstLayer = i + 1;
+					break;
+				}
+			}
+		}
+
+		for (int i = firstLayer; i < layers.size(); i++) {
+			final MappingLayer layer = layers.get(i);
 			// We have to rebuild a new tree to work on when a layer doesnt merge into layered
 			boolean rebuild = layer.getSourceNamespace() != MappingsNamespace.NAMED;
 			MemoryMappingTree workingTree;
@@ -102,11 +135,36 @@ public class LayeredMappingsProcessor {
 				mappingTree = new MemoryMappingTree();
 				workingTree.accept(new MappingSourceNsSwitch(mappingTree, MappingsNamespace.NAMED.toString()));
 			}
+
+			if (snapshots != null && mappingTree.getSrcNamespace() != null) {
+				BinaryMappingCache.writeSnapshot(mappingTree, snapshots.get(i));
+			}
 		}
 
 		return mappingTree;
 	}
 
+	private List<Path> getLayerSnapshots(Path cacheDir, MappingContext context) {
+		final List<Path> snapshots = new ArrayList<>();
+		String key = "";
+
+		for (MappingsSpec<?> spec : layeredMappingSpec.layers()) {
+			// Chain the keys, so that a layer's key changes when any of the layers below it change.
+			final StringBuilder layerKey = new StringBuilder("%s|%s|%d".formatted(key, spec.getClass().getName(), spec.hashCode()));
+
+			if (spec instanceof InputFilesMappingsSpec inputFilesSpec) {
+				for (FileSpec fileSpec : inputFilesSpec.inputFiles()) {
+					layerKey.append('|').append(Checksum.toHex(Checksum.sha256(fileSpec.get(context).toFile())));
+				}
+			}
+
+			key = Checksum.toHex(Checksum.sha256(layerKey.toString().getBytes(StandardCharsets.UTF_8)));
+			snapshots.add(cacheDir.resolve(key + ".bin"));
+		}
+
+		return snapshots;
+	}
+
 	@Nullable
 	public Map<String, String> getSignatureFixes(List<MappingLayer> layers) {
 		Map<String, String> signatureFixes = new HashMap<>();
@@ -28,9 +28,9 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
 
+import net.fabricmc.loom.util.BinaryMappingCache;
 import net.fabricmc.loom.util.service.SharedService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public final class TinyMappingsService implements SharedService {
@@ -38,8 +38,7 @@ public final class TinyMappingsService implements SharedService {
 
 	public TinyMappingsService(Path tinyMappings) {
 		try {
-			this.mappingTree = new MemoryMappingTree();
-			MappingReader.read(tinyMappings, mappingTree);
+			this.mappingTree = BinaryMappingCache.read(tinyMappings);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read mappings", e);
 		}
@@ -24,16 +24,24 @@
 
 package net.fabricmc.loom.configuration.providers.mappings.extras.signatures;
 
+import java.util.List;
+
 import org.jetbrains.annotations.ApiStatus;
 
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.spec.FileSpec;
 import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec;
+import net.fabricmc.loom.configuration.providers.mappings.InputFilesMappingsSpec;
 
 @ApiStatus.Experimental
-public record SignatureFixesSpec(FileSpec fileSpec) implements MappingsSpec<SignatureFixesLayerImpl> {
+public record SignatureFixesSpec(FileSpec fileSpec) implements MappingsSpec<SignatureFixesLayerImpl>, InputFilesMappingsSpec {
 	@Override
 	public SignatureFixesLayerImpl createLayer(MappingContext context) {
 		return new SignatureFixesLayerImpl(fileSpec.get(context));
 	}
+
+	@Override
+	public List<FileSpec> inputFiles() {
+		return List.of(fileSpec);
+	}
 }
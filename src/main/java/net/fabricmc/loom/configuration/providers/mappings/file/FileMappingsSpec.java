@@ -24,18 +24,26 @@
 
 package net.fabricmc.loom.configuration.providers.mappings.file;
 
+import java.util.List;
+
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.spec.FileSpec;
 import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec;
+import net.fabricmc.loom.configuration.providers.mappings.InputFilesMappingsSpec;
 
 public record FileMappingsSpec(
 		FileSpec fileSpec, String mappingPath,
 		String fallbackSourceNamespace, String fallbackTargetNamespace,
 		boolean enigma, boolean unpick,
 		String mergeNamespace
-) implements MappingsSpec<FileMappingsLayer> {
+) implements MappingsSpec<FileMappingsLayer>, InputFilesMappingsSpec {
 	@Override
 	public FileMappingsLayer createLayer(MappingContext context) {
 		return new FileMappingsLayer(fileSpec.get(context), mappingPath, fallbackSourceNamespace, fallbackTargetNamespace, enigma, unpick, mergeNamespace);
 	}
+
+	@Override
+	public List<FileSpec> inputFiles() {
+		return List.of(fileSpec);
+	}
 }
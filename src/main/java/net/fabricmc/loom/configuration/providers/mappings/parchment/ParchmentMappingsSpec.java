@@ -24,13 +24,21 @@
 
 package net.fabricmc.loom.configuration.providers.mappings.parchment;
 
+import java.util.List;
+
 import net.fabricmc.loom.api.mappings.layered.spec.FileSpec;
 import net.fabricmc.loom.api.mappings.layered.MappingContext;
 import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec;
+import net.fabricmc.loom.configuration.providers.mappings.InputFilesMappingsSpec;
 
-public record ParchmentMappingsSpec(FileSpec fileSpec, boolean removePrefix) implements MappingsSpec<ParchmentMappingLayer> {
+public record ParchmentMappingsSpec(FileSpec fileSpec, boolean removePrefix) implements MappingsSpec<ParchmentMappingLayer>, InputFilesMappingsSpec {
 	@Override
 	public ParchmentMappingLayer createLayer(MappingContext context) {
 		return new ParchmentMappingLayer(fileSpec.get(context), removePrefix());
 	}
+
+	@Override
+	public List<FileSpec> inputFiles() {
+		return List.of(fileSpec);
+	}
 }
@@ -26,7 +26,16 @@ package net.fabricmc.loom.configuration.providers.minecraft;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContext;
@@ -56,23 +65,104 @@ public final class GluedMinecraftProvider extends MergedMinecraftProvider {
 	@Override
 	protected void mergeJars(File clientJar, File serverJar) throws IOException {
 		Path mappings = getExtension().getMappingConfiguration().tinyMappings;
+		// Resolve the classpath up front, as configurations should not be resolved from the remapping threads.
+		Path[] classPath = TinyRemapperHelper.getMinecraftDependencies(getProject());
 
-		if (!minecraftClientGlueJar.exists()) {
-			getLogger().lifecycle(":Gluing client");
-			remapJar(clientJar.toPath(), minecraftClientGlueJar.toPath(), mappings, MappingsNamespace.CLIENT, MappingsNamespace.GLUE);
+		boolean remapClient = !minecraftClientGlueJar.exists();
+		boolean remapServer = !minecraftServerGlueJar.exists();
+		int threads = remapThreads((remapClient ? 1 : 0) + (remapServer ? 1 : 0));
+
+		List<Runnable> remaps = new ArrayList<>();
+
+		if (remapClient) {
+			remaps.add(() -> {
+				getLogger().lifecycle(":Gluing client");
+				remapJar(clientJar.toPath(), minecraftClientGlueJar.toPath(), mappings, classPath, MappingsNamespace.CLIENT, MappingsNamespace.GLUE, threads);
+			});
 		}
 
-		if (!minecraftServerGlueJar.exists()) {
-			getLogger().lifecycle(":Gluing server");
-			remapJar(serverJar.toPath(), minecraftServerGlueJar.toPath(), mappings, MappingsNamespace.SERVER, MappingsNamespace.GLUE);
+		if (remapServer) {
+			remaps.add(() -> {
+				getLogger().lifecycle(":Gluing server");
+				remapJar(serverJar.toPath(), minecraftServerGlueJar.toPath(), mappings, classPath, MappingsNamespace.SERVER, MappingsNamespace.GLUE, threads);
+			});
 		}
 
+		runConcurrently(remaps);
+
 		super.mergeJars(minecraftClientGlueJar, minecraftServerGlueJar);
 
 		CommandFixNesting.run(getMergedJar().toFile());
 	}
 
-	private void remapJar(Path input, Path output, Path mappingsPath, MappingsNamespace fromM, MappingsNamespace toM) {
+	/**
+	 * The client and server are independent until they are merged, so are remapped at the same time.
+	 * Every remap is waited for before a failure is thrown, so that no remap is left writing in the background.
+	 */
+	private static void runConcurrently(List<Runnable> remaps) {
+		if (remaps.size() <= 1) {
+			remaps.forEach(Runnable::run);
+			return;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(remaps.size());
+
+		try {
+			List<Future<?>> futures = remaps.stream().<Future<?>>map(executor::submit).toList();
+			RuntimeException failure = null;
+
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					futures.forEach(f -> f.cancel(true));
+					failure = addFailure(failure, new RuntimeException("Interrupted while remapping minecraft", e));
+					break;
+				} catch (ExecutionException e) {
+					failure = addFailure(failure, e.getCause() instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException("Failed to remap minecraft", e.getCause()));
+				}
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+		} finally {
+			executor.shutdown();
+			awaitTermination(executor);
+		}
+	}
+
+	private static RuntimeException addFailure(RuntimeException failure, RuntimeException e) {
+		if (failure == null) {
+			return e;
+		}
+
+		failure.addSuppressed(e);
+		return failure;
+	}
+
+	private static void awaitTermination(ExecutorService executor) {
+		try {
+			// Cancelled remaps stop at their next interrupt check, their temp jars are deleted once they do.
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Shares the available processors between the concurrent remaps.
+	 */
+	private static int remapThreads(int concurrentRemaps) {
+		return Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, concurrentRemaps));
+	}
+
+	/**
+	 * Remaps into a temp jar that is only moved to the output once complete, so that a failed remap leaves no output behind.
+	 */
+	private void remapJar(Path input, Path output, Path mappingsPath, Path[] classPath, MappingsNamespace fromM, MappingsNamespace toM, int threads) {
 		getLogger().lifecycle(":Remapping minecraft (TinyRemapper, " + fromM + " -> " + toM + ')');
 
 		IMappingProvider mappings = TinyUtils.createTinyMappingProvider(mappingsPath, fromM.toString(), toM.toString());
@@ -82,17 +172,41 @@ public final class GluedMinecraftProvider extends MergedMinecraftProvider {
 				.ignoreConflicts(false)
 				.renameInvalidLocals(true)
 				.rebuildSourceFilenames(true)
+				.threads(threads)
 				.build();
 
-		try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(output).build()) {
-			remapper.readClassPath(TinyRemapperHelper.getMinecraftDependencies(getProject()));
-			remapper.readInputs(input);
-			remapper.apply(outputConsumer);
-			outputConsumer.addNonClassFiles(input, NonClassCopyMode.FIX_META_INF, remapper);
+		Path tempOutput = null;
+
+		try {
+			tempOutput = Files.createTempFile(output.getParent(), output.getFileName().toString(), ".tmp");
+			// The output consumer creates the jar itself
+			Files.delete(tempOutput);
+
+			try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(tempOutput).build()) {
+				remapper.readClassPath(classPath);
+				remapper.readInputs(input);
+				remapper.apply(outputConsumer);
+				outputConsumer.addNonClassFiles(input, NonClassCopyMode.FIX_META_INF, remapper);
+			}
+
+			Files.move(tempOutput, output, StandardCopyOption.REPLACE_EXISTING);
 		} catch (Exception e) {
 			throw new RuntimeException("Failed to remap JARs " + input + " with mappings from " + mappings, e);
 		} finally {
 			remapper.finish();
+			deleteIfExists(tempOutput);
+		}
+	}
+
+	private void deleteIfExists(Path path) {
+		if (path == null) {
+			return;
+		}
+
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			getLogger().warn("Failed to delete {}", path, e);
 		}
 	}
 }
@@ -192,6 +192,8 @@ public abstract class MinecraftProvider {
 				final MinecraftVersionMeta.Download client = versionInfo.download("client");
 				getExtension().download(client.url())
 						.sha1(client.sha1())
+						.size(client.size())
+						.resumable()
 						.progress(new GradleDownloadProgressListener("Minecraft client", progressGroup::createProgressLogger))
 						.downloadPathAsync(minecraftClientJar.toPath(), executor);
 			}
@@ -200,6 +202,8 @@ public abstract class MinecraftProvider {
 				final MinecraftVersionMeta.Download server = versionInfo.download("server");
 				getExtension().download(server.url())
 						.sha1(server.sha1())
+						.size(server.size())
+						.resumable()
 						.progress(new GradleDownloadProgressListener("Minecraft server", progressGroup::createProgressLogger))
 						.downloadPathAsync(minecraftServerJar.toPath(), executor);
 			}
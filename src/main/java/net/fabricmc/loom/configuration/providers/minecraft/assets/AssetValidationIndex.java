@@ -0,0 +1,193 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.configuration.providers.minecraft.assets;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compact record of the size, last modified time and hash of every file written for an asset index.
+ *
+ * <p>A file that has the same size and last modified time as when it was recorded is assumed to be intact,
+ * allowing an up-to-date check to be done with a single read of this index and a stat per file,
+ * rather than reading hash attributes (or their fallback files) for each object.
+ */
+public final class AssetValidationIndex {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AssetValidationIndex.class);
+	private static final int MAGIC = 0x4C415649; // LAVI
+	private static final int VERSION = 1;
+	private static final int SHA1_LENGTH = 20;
+
+	private final Map<String, Entry> entries;
+	// The keys updated since the index was read
+	private final Set<String> updated = new HashSet<>();
+
+	private AssetValidationIndex(Map<String, Entry> entries) {
+		this.entries = entries;
+	}
+
+	public static AssetValidationIndex empty() {
+		return new AssetValidationIndex(new HashMap<>());
+	}
+
+	/**
+	 * Reads the index, returning an empty index if it does not exist or cannot be read.
+	 */
+	public static AssetValidationIndex read(Path path) {
+		final byte[] bytes;
+
+		try {
+			bytes = Files.readAllBytes(path);
+		} catch (NoSuchFileException e) {
+			return empty();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read asset validation index ({})", path, e);
+			return empty();
+		}
+
+		try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				return empty();
+			}
+
+			final int count = input.readInt();
+			final Map<String, Entry> entries = new HashMap<>(count * 2);
+
+			for (int i = 0; i < count; i++) {
+				final String file = input.readUTF();
+				final byte[] sha1 = new byte[SHA1_LENGTH];
+				input.readFully(sha1);
+				entries.put(file, new Entry(sha1, input.readLong(), input.readLong()));
+			}
+
+			return new AssetValidationIndex(entries);
+		} catch (IOException e) {
+			LOGGER.warn("Asset validation index ({}) is corrupt, ignoring", path, e);
+			return empty();
+		}
+	}
+
+	/**
+	 * @return true when the file exists and matches the recorded size, last modified time and hash.
+	 */
+	public boolean isValid(Path file, String sha1) throws IOException {
+		final Entry entry = entries.get(key(file));
+
+		if (entry == null || !HexFormat.of().formatHex(entry.sha1()).equalsIgnoreCase(sha1)) {
+			return false;
+		}
+
+		final BasicFileAttributes attributes;
+
+		try {
+			attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			return false;
+		}
+
+		return attributes.size() == entry.size() && attributes.lastModifiedTime().toMillis() == entry.lastModified();
+	}
+
+	/**
+	 * Records the current state of a file that is known to have the given hash.
+	 */
+	public void update(Path file, String sha1) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		final String key = key(file);
+		entries.put(key, new Entry(HexFormat.of().parseHex(sha1), attributes.size(), attributes.lastModifiedTime().toMillis()));
+		updated.add(key);
+	}
+
+	/**
+	 * Writes the index, merged with the entries written by any other project or build since it was read.
+	 */
+	public void write(Path path) throws IOException {
+		if (updated.isEmpty()) {
+			return;
+		}
+
+		Files.createDirectories(path.getParent());
+
+		final Map<String, Entry> merged = read(path).entries;
+
+		for (String key : updated) {
+			merged.put(key, entries.get(key));
+		}
+
+		final Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+		try {
+			try (OutputStream outputStream = Files.newOutputStream(tempFile);
+					DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+				output.writeInt(MAGIC);
+				output.writeInt(VERSION);
+				output.writeInt(merged.size());
+
+				for (Map.Entry<String, Entry> mapEntry : merged.entrySet()) {
+				final Entry entry = mapEntry.getValue();
+				output.writeUTF(mapEntry.getKey());
+				output.write(entry.sha1());
+				output.writeLong(entry.size());
+				output.writeLong(entry.lastModified());
+				}
+			}
+
+			try {
+				Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+
+		updated.clear();
+	}
+
+	private static String key(Path file) {
+		return file.toAbsolutePath().toString();
+	}
+
+	private record Entry(byte[] sha1, long size, long lastModified) {
+	}
+}
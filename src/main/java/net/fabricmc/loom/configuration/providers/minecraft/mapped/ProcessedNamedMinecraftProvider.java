@@ -25,12 +25,17 @@
 package net.fabricmc.loom.configuration.providers.minecraft.mapped;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 
+import com.google.common.hash.Hashing;
 import org.gradle.api.Project;
 
 import net.fabricmc.loom.configuration.providers.minecraft.GluedMinecraftProvider;
@@ -44,8 +49,13 @@ import net.fabricmc.loom.configuration.providers.minecraft.MinecraftSourceSets;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarEnvType;
 import net.fabricmc.loom.configuration.providers.minecraft.SingleJarMinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.SplitMinecraftProvider;
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.ContentAddressedStore;
 
 public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvider, P extends NamedMinecraftProvider<M>> extends NamedMinecraftProvider<M> {
+	// Jars that no project has used for this long, and that are not linked into any project, are deleted from the store.
+	private static final Duration UNUSED_STORE_ENTRY_AGE = Duration.ofDays(7);
+
 	private final P parentMinecraftProvider;
 	private final MinecraftJarProcessorManager jarProcessorManager;
 
@@ -78,17 +88,66 @@ public abstract class ProcessedNamedMinecraftProvider<M extends MinecraftProvide
 	}
 
 	private void processJars() throws IOException {
+		final ContentAddressedStore store = new ContentAddressedStore(extension.getFiles().getProcessedMinecraftStore().toPath());
+
 		for (MinecraftJar minecraftJar : parentMinecraftProvider.getMinecraftJars()) {
 			final MinecraftJar outputJar = getProcessedJar(minecraftJar);
 			deleteSimilarJars(outputJar.getPath());
 
+			// Projects with the same processor inputs share a single processed jar, linked into each project's maven repo.
+			final String key = getStoreKey(minecraftJar);
+			final Path storedJar = store.getPath(key);
+
+			if (jarProcessorManager.requiresProcessingJar(storedJar)) {
+				processIntoStore(minecraftJar, storedJar);
+			} else {
+				getProject().getLogger().info("Reusing processed minecraft jar {} for {}", storedJar, minecraftJar.getName());
+			}
+
 			final LocalMavenHelper mavenHelper = getMavenHelper(minecraftJar.getName());
-			final Path outputPath = mavenHelper.copyToMaven(minecraftJar.getPath(), null);
+			store.materialise(key, mavenHelper.getOutputFile(null), "processed:" + key);
+			store.markUsed(key);
+			mavenHelper.savePom();
+		}
 
-			jarProcessorManager.processJar(outputPath, new ProcessorContextImpl(configContext, minecraftJar));
+		// Jars are only added to the store here, so this is also where the jars of previous processor inputs are cleaned up.
+		store.deleteUnused(UNUSED_STORE_ENTRY_AGE);
+	}
+
+	private void processIntoStore(MinecraftJar minecraftJar, Path storedJar) throws IOException {
+		Files.createDirectories(storedJar.getParent());
+		final Path tempJar = Files.createTempFile(storedJar.getParent(), storedJar.getFileName().toString(), ".jar");
+
+		try {
+			Files.copy(minecraftJar.getPath(), tempJar, StandardCopyOption.REPLACE_EXISTING);
+			jarProcessorManager.processJar(tempJar, new ProcessorContextImpl(configContext, minecraftJar));
+
+			try {
+				Files.move(tempJar, storedJar, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempJar, storedJar, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempJar);
 		}
 	}
 
+	/**
+	 * The processed jar is fully determined by the input jar and the processors (including their inputs), so these form the key in the store.
+	 */
+	private String getStoreKey(MinecraftJar minecraftJar) throws IOException {
+		final Path inputJar = minecraftJar.getPath().toAbsolutePath();
+		final String key = String.join("\n",
+				jarProcessorManager.getCacheValue(),
+				minecraftJar.getName(),
+				inputJar.toString(),
+				Long.toString(Files.size(inputJar)),
+				Long.toString(Files.getLastModifiedTime(inputJar).toMillis())
+		);
+
+		return Checksum.toHex(Hashing.sha1().hashString(key, StandardCharsets.UTF_8).asBytes());
+	}
+
 	private void applyDependencies() {
 		final List<String> dependencyTargets = parentMinecraftProvider.getDependencyTargets();
 
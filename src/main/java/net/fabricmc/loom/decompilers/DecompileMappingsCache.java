@@ -0,0 +1,150 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * A cache of the mappings used to decompile, once processed by the minecraft jar processors.
+ *
+ * <p>Each key has a {@code <key>.tiny} file with the processed mappings, or a {@code <key>.unchanged} marker when the
+ * processors did not change the input mappings. The mappings are later cached again as {@code <key>.tiny.bin} and
+ * {@code <key>.tiny.javadoc}. Keys other than the current one are deleted once none of their files have been used for the max age.
+ */
+public final class DecompileMappingsCache {
+	private static final Logger LOGGER = Logging.getLogger(DecompileMappingsCache.class);
+	private static final String USED_SUFFIX = ".used";
+
+	public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(7);
+
+	private final Path root;
+	private final Duration maxAge;
+
+	public DecompileMappingsCache(Path root) {
+		this(root, DEFAULT_MAX_AGE);
+	}
+
+	public DecompileMappingsCache(Path root, Duration maxAge) {
+		this.root = root;
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * @return the processed mappings for the key, written by the processor when not yet cached, or the input mappings when unchanged
+	 */
+	public Path get(String key, Path inputMappings, MappingsWriter writer) throws IOException {
+		Files.createDirectories(root);
+		// The mappings and their caches hold the modified time of the mappings, so the last use is tracked separately.
+		Files.write(root.resolve(key + USED_SUFFIX), new byte[0]);
+		deleteUnused(key);
+
+		final Path outputMappings = root.resolve(key + ".tiny");
+		// Marks that the processors did not change the input mappings.
+		final Path unchangedMarker = root.resolve(key + ".unchanged");
+
+		if (Files.exists(outputMappings)) {
+			return outputMappings;
+		}
+
+		if (Files.exists(unchangedMarker)) {
+			return inputMappings;
+		}
+
+		final Path tempMappings = Files.createTempFile(root, key, ".tmp");
+
+		try {
+			if (!writer.write(tempMappings)) {
+				Files.write(unchangedMarker, new byte[0]);
+				return inputMappings;
+			}
+
+			Files.move(tempMappings, outputMappings, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempMappings);
+		}
+
+		return outputMappings;
+	}
+
+	/**
+	 * Deletes the files of the other keys, including their binary and javadoc caches, that have not been used for the max age.
+	 */
+	private void deleteUnused(String currentKey) throws IOException {
+		final long cutoff = System.currentTimeMillis() - maxAge.toMillis();
+		final Map<String, List<Path>> filesByKey;
+
+		try (Stream<Path> stream = Files.list(root)) {
+			filesByKey = stream.filter(Files::isRegularFile).collect(Collectors.groupingBy(path -> {
+				final String name = path.getFileName().toString();
+				final int dot = name.indexOf('.');
+				return dot < 0 ? name : name.substring(0, dot);
+			}));
+		}
+
+		for (Map.Entry<String, List<Path>> entry : filesByKey.entrySet()) {
+			if (entry.getKey().startsWith(currentKey)) {
+				// Includes the temp files of the current key, which may be in use by another project
+				continue;
+			}
+
+			long lastUsed = 0;
+
+			for (Path file : entry.getValue()) {
+				lastUsed = Math.max(lastUsed, Files.getLastModifiedTime(file).toMillis());
+			}
+
+			if (lastUsed >= cutoff) {
+				continue;
+			}
+
+			for (Path file : entry.getValue()) {
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException e) {
+					LOGGER.warn("Failed to delete unused decompile mappings {}", file, e);
+				}
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface MappingsWriter {
+		/**
+		 * @return false when the mappings are unchanged, and nothing was written
+		 */
+		boolean write(Path output) throws IOException;
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import net.fabricmc.loom.util.Checksum;
+import net.fabricmc.loom.util.DeletingFileVisitor;
+
+/**
+ * A cache of decompiled sources jars and line maps shared between the projects of a build.
+ *
+ * <p>Entries are keyed by everything that affects the decompiled output, such as the digests of the input jar and mappings.
+ * Only one project decompiles a given key at a time, other projects (or builds) wait for it to finish and then copy the result.
+ *
+ * <p>Only the most recently used entries are kept, older entries are deleted once they are not locked by another project.
+ */
+public final class DecompiledSourcesCache {
+	private static final Logger LOGGER = Logging.getLogger(DecompiledSourcesCache.class);
+	private static final long LOCK_POLL_MILLIS = 100;
+
+	private static final String SOURCES_JAR = "sources.jar";
+	private static final String LINE_MAP = "sources.lmap";
+	private static final String LOCK_SUFFIX = ".lock";
+
+	public static final int DEFAULT_MAX_ENTRIES = 4;
+
+	private final Path root;
+	private final int maxEntries;
+
+	public DecompiledSourcesCache(Path root) {
+		this(root, DEFAULT_MAX_ENTRIES);
+	}
+
+	public DecompiledSourcesCache(Path root, int maxEntries) {
+		this.root = root;
+		this.maxEntries = maxEntries;
+	}
+
+	public static String getKey(List<String> keyParts) {
+		return Checksum.toHex(Checksum.sha256(String.join("\n", keyParts).getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Copies the cached sources jar and line map for the key, or runs the decompilation and stores its outputs in the cache.
+	 *
+	 * @return true when the outputs were restored from the cache
+	 */
+	public boolean restoreOrDecompile(String key, Path sourcesJar, Path lineMap, Decompilation decompilation) throws IOException {
+		Files.createDirectories(root);
+
+		final boolean restored = restoreOrDecompileLocked(key, sourcesJar, lineMap, decompilation);
+		evict();
+		return restored;
+	}
+
+	private boolean restoreOrDecompileLocked(String key, Path sourcesJar, Path lineMap, Decompilation decompilation) throws IOException {
+		final Path entry = root.resolve(key);
+
+		try (FileChannel channel = FileChannel.open(root.resolve(key + LOCK_SUFFIX), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+				FileLock ignored = lock(channel, key)) {
+			if (Files.exists(entry.resolve(SOURCES_JAR))) {
+				LOGGER.info("Restoring decompiled sources from {}", entry);
+
+				// Copied rather than linked, the sources jar may be written to in place by a later decompile.
+				Files.copy(entry.resolve(SOURCES_JAR), sourcesJar, StandardCopyOption.REPLACE_EXISTING);
+
+				if (Files.exists(entry.resolve(LINE_MAP))) {
+					Files.copy(entry.resolve(LINE_MAP), lineMap, StandardCopyOption.REPLACE_EXISTING);
+				} else {
+					Files.deleteIfExists(lineMap);
+				}
+
+				// The modified time of an entry is when it was last used
+				Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+				return true;
+			}
+
+			decompilation.run();
+			store(entry, sourcesJar, lineMap);
+			return false;
+		}
+	}
+
+	private static FileLock lock(FileChannel channel, String key) throws IOException {
+		boolean logged = false;
+
+		while (true) {
+			try {
+				final FileLock lock = channel.tryLock();
+
+				if (lock != null) {
+					return lock;
+				}
+			} catch (OverlappingFileLockException e) {
+				// Locked by another project in this JVM
+			}
+
+			if (!logged) {
+				LOGGER.lifecycle("Waiting for another project to finish decompiling the same sources ({})", key);
+				logged = true;
+			}
+
+			try {
+				Thread.sleep(LOCK_POLL_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the decompiled sources lock", e);
+			}
+		}
+	}
+
+	/**
+	 * Deletes all but the most recently used entries, skipping any that are locked by another project.
+	 */
+	private void evict() throws IOException {
+		final List<Path> entries;
+
+		try (Stream<Path> stream = Files.list(root)) {
+			entries = stream.filter(path -> Files.isDirectory(path) && Files.exists(path.resolve(SOURCES_JAR)))
+					.sorted(Comparator.comparing(DecompiledSourcesCache::getLastModifiedTime).reversed())
+					.toList();
+		}
+
+		for (Path entry : entries.subList(Math.min(maxEntries, entries.size()), entries.size())) {
+			final Path lockFile = root.resolve(entry.getFileName() + LOCK_SUFFIX);
+
+			try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+					FileLock lock = channel.tryLock()) {
+				if (lock == null) {
+					continue;
+				}
+
+				LOGGER.info("Deleting unused decompiled sources {}", entry);
+				Files.walkFileTree(entry, new DeletingFileVisitor());
+				// Deleted while held, a project already waiting on it finds no entry and decompiles again.
+				deleteLockFile(lockFile);
+			} catch (OverlappingFileLockException e) {
+				// In use by another project in this JVM
+			} catch (IOException e) {
+				LOGGER.warn("Failed to delete unused decompiled sources {}", entry, e);
+			}
+		}
+	}
+
+	private static void deleteLockFile(Path lockFile) {
+		try {
+			Files.deleteIfExists(lockFile);
+		} catch (IOException e) {
+			// Only a few bytes, left behind when it cannot be deleted
+			LOGGER.debug("Failed to delete lock file {}", lockFile, e);
+		}
+	}
+
+	private static FileTime getLastModifiedTime(Path path) {
+		try {
+			return Files.getLastModifiedTime(path);
+		} catch (IOException e) {
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	private void store(Path entry, Path sourcesJar, Path lineMap) throws IOException {
+		final Path tempEntry = Files.createTempDirectory(root, entry.getFileName().toString());
+
+		try {
+			Files.copy(sourcesJar, tempEntry.resolve(SOURCES_JAR));
+
+			if (Files.exists(lineMap)) {
+				Files.copy(lineMap, tempEntry.resolve(LINE_MAP));
+			}
+
+			if (Files.exists(entry)) {
+				// An incomplete entry left behind by a previous build
+				Files.walkFileTree(entry, new DeletingFileVisitor());
+			}
+
+			try {
+				Files.move(tempEntry, entry, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempEntry, entry);
+			}
+		} finally {
+			if (Files.exists(tempEntry)) {
+				Files.walkFileTree(tempEntry, new DeletingFileVisitor());
+			}
+		}
+	}
+
+	@FunctionalInterface
+	public interface Decompilation {
+		void run() throws IOException;
+	}
+}
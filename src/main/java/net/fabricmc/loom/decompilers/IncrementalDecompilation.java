@@ -0,0 +1,350 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.fabricmc.loom.util.Checksum;
+
+/**
+ * Tracks the classes decompiled by genSources, so that a later run only needs to decompile the classes that have changed.
+ *
+ * <p>An index of the digest of every class is stored next to the sources jar. Classes are grouped by their outer class, as
+ * that is the unit that a decompiler writes a source file and line map for. When any class in a group has changed (or been
+ * added or removed), the whole group is decompiled again and spliced into the previous sources jar and line map.
+ *
+ * <p>For each class the index stores the digest of the bytecode that was decompiled, and the digest of the runtime class
+ * after its line numbers were remapped. Either digest is treated as unchanged, as the input jar may be the runtime jar.
+ * The runtime digest is also used to find the classes that still need their line numbers remapping, as the runtime jar
+ * may have been rebuilt without any of the classes changing.
+ */
+public final class IncrementalDecompilation {
+	private static final String KEY_PREFIX = "key\t";
+
+	private final Path indexFile;
+	private final String key;
+	private final Map<String, String> inputDigests;
+	@Nullable
+	private final Map<String, ClassState> previous;
+	private final Set<String> changedGroups = new HashSet<>();
+	private final Set<String> removedGroups = new HashSet<>();
+
+	private IncrementalDecompilation(Path indexFile, String key, Map<String, String> inputDigests, @Nullable Map<String, ClassState> previous) {
+		this.indexFile = indexFile;
+		this.key = key;
+		this.inputDigests = inputDigests;
+		this.previous = previous;
+
+		if (previous != null) {
+			findChanges(previous);
+		}
+	}
+
+	/**
+	 * @param keyParts everything other than the input classes that affects the decompiled output, such as the decompiler options and mappings.
+	 * @param allowIncremental false to force every class to be decompiled
+	 */
+	public static IncrementalDecompilation create(Path indexFile, Path inputJar, List<String> keyParts, boolean allowIncremental) throws IOException {
+		final String key = Checksum.toHex(Checksum.sha256(String.join("\n", keyParts).getBytes(StandardCharsets.UTF_8)));
+		final Map<String, String> inputDigests = readDigests(inputJar);
+		final Map<String, ClassState> previous = allowIncremental ? readIndex(indexFile, key) : null;
+		return new IncrementalDecompilation(indexFile, key, inputDigests, previous);
+	}
+
+	/**
+	 * @return true when a previous index could be used, in which case only the changed groups need decompiling
+	 */
+	public boolean isIncremental() {
+		return previous != null;
+	}
+
+	public Set<String> getChangedGroups() {
+		return Collections.unmodifiableSet(changedGroups);
+	}
+
+	public boolean hasChanges() {
+		return !changedGroups.isEmpty() || !removedGroups.isEmpty();
+	}
+
+	private void findChanges(Map<String, ClassState> previous) {
+		final Set<String> groups = inputDigests.keySet().stream().map(IncrementalDecompilation::getGroup).collect(Collectors.toSet());
+
+		for (Map.Entry<String, String> entry : inputDigests.entrySet()) {
+			final ClassState state = previous.get(entry.getKey());
+
+			if (state == null || !state.matches(entry.getValue())) {
+				changedGroups.add(getGroup(entry.getKey()));
+			}
+		}
+
+		for (String className : previous.keySet()) {
+			if (!inputDigests.containsKey(className)) {
+				final String group = getGroup(className);
+
+				if (groups.contains(group)) {
+					// An inner class was removed
+					changedGroups.add(group);
+				} else {
+					removedGroups.add(group);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the sources of the changed and removed groups in the sources jar with the newly decompiled sources.
+	 */
+	public void spliceSources(Path sourcesJar, @Nullable Path partialSourcesJar) throws IOException {
+		final Path output = Files.createTempFile(sourcesJar.getParent(), sourcesJar.getFileName().toString(), ".tmp");
+
+		try {
+			try (ZipFile previousSources = new ZipFile(sourcesJar.toFile());
+					ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(output))) {
+				final Set<String> written = new HashSet<>();
+
+				if (partialSourcesJar != null) {
+					copyEntries(partialSourcesJar, zos, name -> true, written);
+				}
+
+				copyEntries(previousSources, zos, name -> !isReplacedSource(name), written);
+			}
+
+			Files.move(output, sourcesJar, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(output);
+		}
+	}
+
+	private boolean isReplacedSource(String name) {
+		if (!name.endsWith(".java")) {
+			return false;
+		}
+
+		final String group = name.substring(0, name.length() - 5);
+		return changedGroups.contains(group) || removedGroups.contains(group);
+	}
+
+	private static void copyEntries(Path zip, ZipOutputStream zos, Predicate<String> filter, Set<String> written) throws IOException {
+		try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+			copyEntries(zipFile, zos, filter, written);
+		}
+	}
+
+	private static void copyEntries(ZipFile zipFile, ZipOutputStream zos, Predicate<String> filter, Set<String> written) throws IOException {
+		for (ZipEntry entry : Collections.list(zipFile.entries())) {
+			if (!filter.test(entry.getName()) || !written.add(entry.getName())) {
+				continue;
+			}
+
+			zos.putNextEntry(new ZipEntry(entry.getName()));
+
+			try (InputStream is = zipFile.getInputStream(entry)) {
+				is.transferTo(zos);
+			}
+
+			zos.closeEntry();
+		}
+	}
+
+	/**
+	 * Replaces the line maps of the changed and removed groups with the line map of the newly decompiled classes.
+	 */
+	public void mergeLineMaps(Path lineMap, @Nullable Path partialLineMap) throws IOException {
+		if (Files.notExists(lineMap) && (partialLineMap == null || Files.notExists(partialLineMap))) {
+			// The decompiler does not produce line maps
+			return;
+		}
+
+		final StringBuilder merged = new StringBuilder();
+
+		if (Files.exists(lineMap)) {
+			try (BufferedReader reader = Files.newBufferedReader(lineMap, StandardCharsets.UTF_8)) {
+				boolean keep = false;
+				String line;
+
+				while ((line = reader.readLine()) != null) {
+					if (line.isEmpty()) {
+						continue;
+					}
+
+					if (line.charAt(0) != '\t') {
+						final String group = line.substring(0, line.indexOf('\t'));
+						keep = !changedGroups.contains(group) && !removedGroups.contains(group);
+					}
+
+					if (keep) {
+						merged.append(line).append('\n');
+					}
+				}
+			}
+		}
+
+		if (partialLineMap != null && Files.exists(partialLineMap)) {
+			merged.append(Files.readString(partialLineMap, StandardCharsets.UTF_8));
+		}
+
+		Files.writeString(lineMap, merged, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the classes in the runtime jar that need their line numbers remapping, or null when all of them do.
+	 */
+	@Nullable
+	public Set<String> getClassesToLineMap(Path runtimeJar) throws IOException {
+		if (previous == null) {
+			return null;
+		}
+
+		final Set<String> classes = new HashSet<>();
+
+		for (Map.Entry<String, String> entry : readDigests(runtimeJar).entrySet()) {
+			final ClassState state = previous.get(entry.getKey());
+
+			if (changedGroups.contains(getGroup(entry.getKey())) || state == null || !state.runtimeDigest().equals(entry.getValue())) {
+				classes.add(entry.getKey());
+			}
+		}
+
+		return classes;
+	}
+
+	/**
+	 * Writes the index once the sources have been decompiled and the runtime jar has been line mapped.
+	 */
+	public void writeIndex(Path runtimeJar) throws IOException {
+		final Map<String, String> runtimeDigests = readDigests(runtimeJar);
+		final Path output = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+				writer.write(KEY_PREFIX + key);
+				writer.newLine();
+
+				for (Map.Entry<String, String> entry : new TreeMap<>(inputDigests).entrySet()) {
+					final String className = entry.getKey();
+					String inputDigest = entry.getValue();
+
+					if (previous != null && !changedGroups.contains(getGroup(className))) {
+						// Keep the digest of the bytecode that was actually decompiled, the input may now be the line mapped class.
+						inputDigest = previous.get(className).inputDigest();
+					}
+
+					writer.write(className + "\t" + inputDigest + "\t" + runtimeDigests.getOrDefault(className, ""));
+					writer.newLine();
+				}
+			}
+
+			Files.move(output, indexFile, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(output);
+		}
+	}
+
+	@Nullable
+	private static Map<String, ClassState> readIndex(Path indexFile, String key) throws IOException {
+		if (Files.notExists(indexFile)) {
+			return null;
+		}
+
+		final Map<String, ClassState> index = new HashMap<>();
+
+		try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+			if (!(KEY_PREFIX + key).equals(reader.readLine())) {
+				return null;
+			}
+
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+				final String[] split = line.split("\t", -1);
+
+				if (split.length != 3) {
+					return null;
+				}
+
+				index.put(split[0], new ClassState(split[1], split[2]));
+			}
+		}
+
+		return index;
+	}
+
+	private static Map<String, String> readDigests(Path jar) throws IOException {
+		final Map<String, String> digests = new HashMap<>();
+
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				final String className = getClassName(entry.getName());
+
+				if (className == null) {
+					continue;
+				}
+
+				try (InputStream is = zipFile.getInputStream(entry)) {
+					digests.put(className, Checksum.toHex(Checksum.sha256(is.readAllBytes())));
+				}
+			}
+		}
+
+		return digests;
+	}
+
+	@Nullable
+	static String getClassName(String entryName) {
+		return entryName.endsWith(".class") ? entryName.substring(0, entryName.length() - 6) : null;
+	}
+
+	static String getGroup(String className) {
+		final int dollarPos = className.indexOf('$');
+		return dollarPos >= 0 ? className.substring(0, dollarPos) : className;
+	}
+
+	private record ClassState(String inputDigest, String runtimeDigest) {
+		boolean matches(String digest) {
+			return inputDigest.equals(digest) || runtimeDigest.equals(digest);
+		}
+	}
+}
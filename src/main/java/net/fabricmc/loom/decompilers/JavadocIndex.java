@@ -0,0 +1,289 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
+import net.fabricmc.loom.util.BinaryMappingCache;
+import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * The javadoc of a mappings file, keyed by the named class, field and method names and descriptors.
+ *
+ * <p>The index is written next to the mappings file by the task, and memory mapped by the decompiler so that the
+ * mapping tree does not need to be loaded into the decompiler's heap. Method docs are stored with their parameter docs
+ * already appended, everything else is stored as is.
+ *
+ * <p>The entries are sorted by key and found with a binary search, only the docs that are looked up are decoded.
+ */
+public final class JavadocIndex {
+	private static final int MAGIC = 0x4C4A4431; // LJD1
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 28;
+	private static final String EXTENSION = ".javadoc";
+
+	private final ByteBuffer buffer;
+	private final int count;
+
+	private JavadocIndex(ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.count = buffer.getInt(HEADER_SIZE - 4);
+	}
+
+	/**
+	 * Opens the index of the given mappings, writing it first if it is missing or out of date.
+	 */
+	public static JavadocIndex open(Path mappings) throws IOException {
+		final Path index = write(mappings);
+
+		try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new JavadocIndex(buffer);
+		}
+	}
+
+	/**
+	 * Writes the index of the given mappings, unless an up to date index already exists.
+	 *
+	 * @return the path of the index
+	 */
+	public static Path write(Path mappings) throws IOException {
+		final Path index = getPath(mappings);
+		final BasicFileAttributes attributes = Files.readAttributes(mappings, BasicFileAttributes.class);
+		final long size = attributes.size();
+		final long lastModified = attributes.lastModifiedTime().toMillis();
+
+		if (isUpToDate(index, size, lastModified)) {
+			return index;
+		}
+
+		final MemoryMappingTree mappingTree = new MemoryMappingTree();
+		BinaryMappingCache.read(mappings, new MappingSourceNsSwitch(mappingTree, MappingsNamespace.NAMED.toString()));
+
+		final Path temp = Files.createTempFile(index.getParent(), index.getFileName().toString(), ".tmp");
+
+		try {
+			try (OutputStream os = Files.newOutputStream(temp)) {
+				write(mappingTree, size, lastModified, os);
+			}
+
+			Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+
+		return index;
+	}
+
+	@VisibleForTesting
+	public static Path getPath(Path mappings) {
+		return mappings.resolveSibling(mappings.getFileName() + EXTENSION);
+	}
+
+	@Nullable
+	public String getClassDoc(String className) {
+		return get(className);
+	}
+
+	@Nullable
+	public String getFieldDoc(String owner, String name, String descriptor) {
+		return get(memberKey(owner, name, descriptor));
+	}
+
+	/**
+	 * @return the method doc followed by the docs of its parameters, or null when there are neither
+	 */
+	@Nullable
+	public String getMethodDoc(String owner, String name, String descriptor) {
+		return get(memberKey(owner, name, descriptor));
+	}
+
+	// Internal class names cannot contain '.' and member names cannot contain ';', so the keys are unique.
+	private static String memberKey(String owner, String name, String descriptor) {
+		return owner + "." + name + ";" + descriptor;
+	}
+
+	@Nullable
+	private String get(String key) {
+		final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = count - 1;
+
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int entry = buffer.getInt(HEADER_SIZE + mid * 4);
+			final int cmp = compareKey(entry, bytes);
+
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				final int docStart = entry + 4 + bytes.length;
+				final byte[] doc = new byte[buffer.getInt(docStart)];
+				buffer.get(docStart + 4, doc);
+				return new String(doc, StandardCharsets.UTF_8);
+			}
+		}
+
+		return null;
+	}
+
+	private int compareKey(int entry, byte[] key) {
+		final int length = buffer.getInt(entry);
+		final int common = Math.min(length, key.length);
+
+		for (int i = 0; i < common; i++) {
+			final int cmp = Byte.compareUnsigned(buffer.get(entry + 4 + i), key[i]);
+
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+
+		return length - key.length;
+	}
+
+	private static boolean isUpToDate(Path index, long size, long lastModified) throws IOException {
+		if (!Files.exists(index)) {
+			return false;
+		}
+
+		try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					return false;
+				}
+			}
+
+			header.flip();
+
+			return header.getInt() == MAGIC
+					&& header.getInt() == VERSION
+					&& header.getLong() == size
+					&& header.getLong() == lastModified;
+		}
+	}
+
+	@VisibleForTesting
+	public static void write(MappingTree mappingTree, long size, long lastModified, OutputStream os) throws IOException {
+		final String named = MappingsNamespace.NAMED.toString();
+		final List<byte[][]> entries = new ArrayList<>();
+
+		for (MappingTree.ClassMapping classMapping : mappingTree.getClasses()) {
+			final String owner = classMapping.getSrcName();
+
+			if (classMapping.getComment() != null) {
+				entries.add(entry(owner, classMapping.getComment()));
+			}
+
+			for (MappingTree.FieldMapping fieldMapping : classMapping.getFields()) {
+				if (fieldMapping.getComment() != null) {
+					entries.add(entry(memberKey(owner, fieldMapping.getSrcName(), fieldMapping.getSrcDesc()), fieldMapping.getComment()));
+				}
+			}
+
+			for (MappingTree.MethodMapping methodMapping : classMapping.getMethods()) {
+				final List<String> parts = new ArrayList<>();
+
+				if (methodMapping.getComment() != null) {
+					parts.add(methodMapping.getComment());
+				}
+
+				boolean addedParam = false;
+
+				for (MappingTree.MethodArgMapping argMapping : methodMapping.getArgs()) {
+					String comment = argMapping.getComment();
+
+					if (comment != null) {
+						if (!addedParam && methodMapping.getComment() != null) {
+							//Add a blank line before params when the method has a comment
+							parts.add("");
+							addedParam = true;
+						}
+
+						parts.add(String.format("@param %s %s", argMapping.getName(named), comment));
+					}
+				}
+
+				if (!parts.isEmpty()) {
+					entries.add(entry(memberKey(owner, methodMapping.getSrcName(), methodMapping.getSrcDesc()), String.join("\n", parts)));
+				}
+			}
+		}
+
+		entries.sort((a, b) -> Arrays.compareUnsigned(a[0], b[0]));
+
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + entries.size() * 4);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putLong(size);
+		header.putLong(lastModified);
+		header.putInt(entries.size());
+
+		int offset = header.capacity();
+
+		for (byte[][] entry : entries) {
+			header.putInt(offset);
+			offset += 8 + entry[0].length + entry[1].length;
+		}
+
+		os.write(header.array());
+
+		final ByteBuffer lengths = ByteBuffer.allocate(4);
+
+		for (byte[][] entry : entries) {
+			for (byte[] bytes : entry) {
+				os.write(lengths.putInt(0, bytes.length).array());
+				os.write(bytes);
+			}
+		}
+	}
+
+	private static byte[][] entry(String key, String doc) {
+		return new byte[][] {key.getBytes(StandardCharsets.UTF_8), doc.getBytes(StandardCharsets.UTF_8)};
+	}
+}
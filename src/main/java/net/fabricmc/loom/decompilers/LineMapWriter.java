@@ -0,0 +1,81 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the line maps of decompiled classes from many threads, and writes them in the format read by {@link LineNumberRemapper}.
+ *
+ * <p>Each class is kept as a flat array until written, and classes are written in name order without blank lines between them.
+ */
+public final class LineMapWriter {
+	private final Map<String, int[]> classes = new ConcurrentHashMap<>();
+
+	/**
+	 * @param className the internal name of the class
+	 * @param mapping pairs of original and decompiled line numbers
+	 */
+	public void add(String className, int[] mapping) {
+		classes.put(className, mapping);
+	}
+
+	public boolean isEmpty() {
+		return classes.isEmpty();
+	}
+
+	public void write(Path output) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+			final StringBuilder builder = new StringBuilder();
+
+			for (Map.Entry<String, int[]> entry : new TreeMap<>(classes).entrySet()) {
+				final int[] mapping = entry.getValue();
+				int maxLine = 0;
+				int maxLineDest = 0;
+
+				for (int i = 0; i < mapping.length; i += 2) {
+					maxLine = Math.max(maxLine, mapping[i]);
+					maxLineDest = Math.max(maxLineDest, mapping[i + 1]);
+				}
+
+				builder.setLength(0);
+				builder.append(entry.getKey()).append('\t').append(maxLine).append('\t').append(maxLineDest).append('\n');
+
+				for (int i = 0; i < mapping.length; i += 2) {
+					builder.append('\t').append(mapping[i]).append('\t').append(mapping[i + 1]).append('\n');
+				}
+
+				writer.append(builder);
+			}
+		}
+	}
+}
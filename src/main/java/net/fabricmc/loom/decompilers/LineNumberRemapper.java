@@ -28,18 +28,32 @@ import static java.text.MessageFormat.format;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -56,8 +70,10 @@ public class LineNumberRemapper {
 	private final Map<String, RClass> lineMap = new HashMap<>();
 
 	public void readMappings(File lineMappings) {
-		try (BufferedReader reader = new BufferedReader(new FileReader(lineMappings))) {
-			RClass clazz = null;
+		final Map<String, RClassBuilder> builders = new HashMap<>();
+
+		try (BufferedReader reader = Files.newBufferedReader(lineMappings.toPath(), StandardCharsets.UTF_8)) {
+			RClassBuilder clazz = null;
 			String line = null;
 			int i = 0;
 
@@ -67,14 +83,17 @@ public class LineNumberRemapper {
 						continue;
 					}
 
-					String[] segs = line.trim().split("\t");
-
 					if (line.charAt(0) != '\t') {
-						clazz = lineMap.computeIfAbsent(segs[0], RClass::new);
-						clazz.maxLine = Integer.parseInt(segs[1]);
-						clazz.maxLineDest = Integer.parseInt(segs[2]);
+						final int first = line.indexOf('\t');
+						final int second = line.indexOf('\t', first + 1);
+
+						clazz = builders.computeIfAbsent(line.substring(0, first), k -> new RClassBuilder());
+						clazz.maxLine = parseInt(line, first + 1, second);
+						clazz.maxLineDest = parseInt(line, second + 1, fieldEnd(line, second + 1));
 					} else {
-						clazz.lineMap.put(Integer.parseInt(segs[0]), Integer.parseInt(segs[1]));
+						final int start = skipWhitespace(line, 1);
+						final int separator = line.indexOf('\t', start);
+						clazz.add(parseInt(line, start, separator), parseInt(line, separator + 1, fieldEnd(line, separator + 1)));
 					}
 
 					i++;
@@ -85,6 +104,30 @@ public class LineNumberRemapper {
 		} catch (IOException e) {
 			throw new RuntimeException("Exception reading LineMappings file.", e);
 		}
+
+		builders.forEach((name, builder) -> lineMap.put(name, builder.build()));
+	}
+
+	private static int skipWhitespace(String line, int index) {
+		while (Character.isWhitespace(line.charAt(index))) {
+			index++;
+		}
+
+		return index;
+	}
+
+	private static int fieldEnd(String line, int start) {
+		final int end = line.indexOf('\t', start);
+		return end >= 0 ? end : line.length();
+	}
+
+	private static int parseInt(String line, int start, int end) {
+		// Trim any trailing whitespace, to match the previous String.trim() behaviour.
+		while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+			end--;
+		}
+
+		return Integer.parseInt(line, start, end, 10);
 	}
 
 	public void process(IOStringConsumer logger, Path input, Path output) throws IOException {
@@ -112,19 +155,11 @@ public class LineNumberRemapper {
 						logger.accept("Remapping " + idx);
 					}
 
-					int dollarPos = idx.indexOf('$'); //This makes the assumption that only Java classes are to be remapped.
-
-					if (dollarPos >= 0) {
-						idx = idx.substring(0, dollarPos);
-					}
+					final RClass rClass = getRClass(idx);
 
-					if (lineMap.containsKey(idx)) {
+					if (rClass != null) {
 						try (InputStream is = Files.newInputStream(file)) {
-							ClassReader reader = new ClassReader(is);
-							ClassWriter writer = new ClassWriter(0);
-
-							reader.accept(new LineNumberVisitor(Constants.ASM_VERSION, writer, lineMap.get(idx)), 0);
-							Files.write(dst, writer.toByteArray());
+							Files.write(dst, remapClass(is.readAllBytes(), rClass));
 							return FileVisitResult.CONTINUE;
 						}
 					}
@@ -136,6 +171,111 @@ public class LineNumberRemapper {
 		});
 	}
 
+	/**
+	 * Remaps the line numbers of the classes in the input jar, writing the result to the output jar.
+	 * Classes are remapped in parallel and streamed to the output jar in the same order as the input.
+	 */
+	public void processJar(@Nullable IOStringConsumer logger, Path inputJar, Path outputJar) throws IOException {
+		processJar(logger, inputJar, outputJar, className -> true);
+	}
+
+	/**
+	 * @param filter selects the classes to remap, any other class is copied as is
+	 */
+	public void processJar(@Nullable IOStringConsumer logger, Path inputJar, Path outputJar, Predicate<String> filter) throws IOException {
+		final int threads = Runtime.getRuntime().availableProcessors();
+		// Bounds the number of remapped entries held in memory while waiting to be written.
+		final int window = threads * 2;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try (ZipFile zipFile = new ZipFile(inputJar.toFile());
+				OutputStream os = Files.newOutputStream(outputJar);
+				ZipOutputStream zos = new ZipOutputStream(os)) {
+			final List<? extends ZipEntry> entries = Collections.list(zipFile.entries());
+			final List<Future<byte[]>> futures = new ArrayList<>(Collections.nCopies(entries.size(), null));
+			int submitted = 0;
+
+			for (int i = 0; i < entries.size(); i++) {
+				for (; submitted < entries.size() && submitted < i + window; submitted++) {
+					final ZipEntry toRemap = entries.get(submitted);
+
+					if (!toRemap.isDirectory()) {
+						futures.set(submitted, executor.submit(() -> readEntry(zipFile, toRemap, filter)));
+					}
+				}
+
+				final ZipEntry entry = entries.get(i);
+				final Future<byte[]> future = futures.set(i, null);
+				final ZipEntry outputEntry = new ZipEntry(entry.getName());
+				outputEntry.setTime(entry.getTime());
+				zos.putNextEntry(outputEntry);
+
+				if (!entry.isDirectory()) {
+					if (logger != null && entry.getName().endsWith(".class")) {
+						logger.accept("Remapping " + entry.getName().substring(0, entry.getName().length() - 6));
+					}
+
+					zos.write(getResult(future, entry));
+				}
+
+				zos.closeEntry();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private byte[] readEntry(ZipFile zipFile, ZipEntry entry, Predicate<String> filter) throws IOException {
+		final byte[] bytes;
+
+		try (InputStream is = zipFile.getInputStream(entry)) {
+			bytes = is.readAllBytes();
+		}
+
+		final String name = entry.getName();
+
+		if (!name.endsWith(".class") || !filter.test(name.substring(0, name.length() - 6))) {
+			return bytes;
+		}
+
+		final RClass rClass = getRClass(name.substring(0, name.length() - 6));
+		return rClass != null ? remapClass(bytes, rClass) : bytes;
+	}
+
+	private static byte[] getResult(Future<byte[]> future, ZipEntry entry) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while remapping " + entry.getName(), e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioException) {
+				throw ioException;
+			}
+
+			throw new IOException("Failed to remap " + entry.getName(), e.getCause());
+		}
+	}
+
+	@Nullable
+	private RClass getRClass(String className) {
+		int dollarPos = className.indexOf('$'); //This makes the assumption that only Java classes are to be remapped.
+
+		if (dollarPos >= 0) {
+			className = className.substring(0, dollarPos);
+		}
+
+		return lineMap.get(className);
+	}
+
+	private static byte[] remapClass(byte[] bytes, RClass rClass) {
+		ClassReader reader = new ClassReader(bytes);
+		ClassWriter writer = new ClassWriter(0);
+
+		reader.accept(new LineNumberVisitor(Constants.ASM_VERSION, writer, rClass), 0);
+		return writer.toByteArray();
+	}
+
 	private static class LineNumberVisitor extends ClassVisitor {
 		private final RClass rClass;
 
@@ -149,34 +289,86 @@ public class LineNumberRemapper {
 			return new MethodVisitor(api, super.visitMethod(access, name, descriptor, signature, exceptions)) {
 				@Override
 				public void visitLineNumber(int line, Label start) {
-					int tLine = line;
+					super.visitLineNumber(rClass.remap(line), start);
+				}
+			};
+		}
+	}
 
-					if (tLine <= 0) {
-						super.visitLineNumber(line, start);
-					} else if (tLine >= rClass.maxLine) {
-						super.visitLineNumber(rClass.maxLineDest, start);
-					} else {
-						Integer matchedLine = null;
+	/**
+	 * The line map of a single class, with the source lines sorted so that the closest mapped line can be binary searched.
+	 */
+	private record RClass(int maxLine, int maxLineDest, int[] lines, int[] targets) {
+		int remap(int line) {
+			if (line <= 0) {
+				return line;
+			}
 
-						while (tLine <= rClass.maxLine && ((matchedLine = rClass.lineMap.get(tLine)) == null)) {
-							tLine++;
-						}
+			if (line >= maxLine) {
+				return maxLineDest;
+			}
 
-						super.visitLineNumber(matchedLine != null ? matchedLine : rClass.maxLineDest, start);
-					}
-				}
-			};
+			// Find the first mapped line at or after the given line.
+			int index = Arrays.binarySearch(lines, line);
+
+			if (index < 0) {
+				index = -index - 1;
+			}
+
+			if (index < lines.length && lines[index] <= maxLine) {
+				return targets[index];
+			}
+
+			return maxLineDest;
 		}
 	}
 
-	private static class RClass {
-		private final String name;
+	private static class RClassBuilder {
 		private int maxLine;
 		private int maxLineDest;
-		private final Map<Integer, Integer> lineMap = new HashMap<>();
+		private int[] lines = new int[16];
+		private int[] targets = new int[16];
+		private int size = 0;
+
+		void add(int line, int target) {
+			if (size == lines.length) {
+				lines = Arrays.copyOf(lines, size * 2);
+				targets = Arrays.copyOf(targets, size * 2);
+			}
+
+			lines[size] = line;
+			targets[size] = target;
+			size++;
+		}
+
+		RClass build() {
+			// Sort by line, then by the order the lines were added in, so that the last duplicate line wins.
+			final long[] order = new long[size];
+
+			for (int i = 0; i < size; i++) {
+				order[i] = ((long) lines[i] << 32) | i;
+			}
+
+			Arrays.sort(order);
+
+			final int[] sortedLines = new int[size];
+			final int[] sortedTargets = new int[size];
+			int count = 0;
+
+			for (long entry : order) {
+				final int line = (int) (entry >> 32);
+				final int target = targets[(int) entry];
+
+				if (count > 0 && sortedLines[count - 1] == line) {
+					sortedTargets[count - 1] = target;
+				} else {
+					sortedLines[count] = line;
+					sortedTargets[count] = target;
+					count++;
+				}
+			}
 
-		private RClass(String name) {
-			this.name = name;
+			return new RClass(maxLine, maxLineDest, Arrays.copyOf(sortedLines, count), Arrays.copyOf(sortedTargets, count));
 		}
 	}
 }
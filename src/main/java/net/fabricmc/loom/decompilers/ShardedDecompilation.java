@@ -0,0 +1,314 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.decompilers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Splits the classes to decompile by package into shards, so that they can be decompiled in separate JVMs with smaller
+ * heaps. Every shard is given the classes of the other shards as a library, so that references to them can be resolved.
+ *
+ * <p>The sources and line maps of the shards are merged in name order, so the output does not depend on the number of
+ * shards or the order that they finished in.
+ */
+public final class ShardedDecompilation {
+	private ShardedDecompilation() {
+	}
+
+	/**
+	 * When every class is decompiled in a single shard, the input jar is decompiled as it is without being copied.
+	 *
+	 * @param inputJar the jar to decompile
+	 * @param groups the outer classes to decompile, or null to decompile every class
+	 * @param shardCount the maximum number of shards, fewer are returned when there are not enough packages
+	 */
+	public static List<Shard> split(Path inputJar, @Nullable Set<String> groups, int shardCount, Path workingDir) throws IOException {
+		if (groups == null && shardCount <= 1) {
+			return List.of(new Shard(0, inputJar, null, workingDir.resolve("shard-0-sources.jar"), workingDir.resolve("shard-0-sources.lmap")));
+		}
+
+		final Map<String, Long> packageSizes = new HashMap<>();
+
+		try (ZipFile zipFile = new ZipFile(inputJar.toFile())) {
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				final String className = IncrementalDecompilation.getClassName(entry.getName());
+
+				if (className != null && isSelected(className, groups)) {
+					packageSizes.merge(getPackage(className), Math.max(entry.getSize(), 1), Long::sum);
+				}
+			}
+		}
+
+		final List<List<String>> partitions = partition(packageSizes, shardCount);
+		final Map<String, Integer> shardByPackage = new HashMap<>();
+		final List<Shard> shards = new ArrayList<>();
+
+		for (int i = 0; i < partitions.size(); i++) {
+			for (String packageName : partitions.get(i)) {
+				shardByPackage.put(packageName, i);
+			}
+
+			shards.add(new Shard(
+					i,
+					workingDir.resolve("shard-%d.jar".formatted(i)),
+					workingDir.resolve("shard-%d-library.jar".formatted(i)),
+					workingDir.resolve("shard-%d-sources.jar".formatted(i)),
+					workingDir.resolve("shard-%d-sources.lmap".formatted(i))
+			));
+		}
+
+		if (shards.isEmpty()) {
+			return shards;
+		}
+
+		final List<ZipOutputStream> inputs = new ArrayList<>();
+		final List<ZipOutputStream> libraries = new ArrayList<>();
+		final List<ZipOutputStream> opened = new ArrayList<>();
+
+		try (ZipFile zipFile = new ZipFile(inputJar.toFile())) {
+			for (Shard shard : shards) {
+				inputs.add(open(shard.inputJar(), opened));
+				libraries.add(open(shard.libraryJar(), opened));
+			}
+
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				if (entry.isDirectory()) {
+					continue;
+				}
+
+				final byte[] data;
+
+				try (InputStream is = zipFile.getInputStream(entry)) {
+					data = is.readAllBytes();
+				}
+
+				final String className = IncrementalDecompilation.getClassName(entry.getName());
+
+				if (className == null) {
+					// Resources are passed to the first shard so that they are copied to the sources jar, unless only some of the classes are being decompiled.
+					writeEntry(groups == null ? inputs.get(0) : libraries.get(0), entry.getName(), data);
+					continue;
+				}
+
+				final Integer shardIndex = isSelected(className, groups) ? shardByPackage.get(getPackage(className)) : null;
+
+				for (int i = 0; i < shards.size(); i++) {
+					writeEntry(shardIndex != null && shardIndex == i ? inputs.get(i) : libraries.get(i), entry.getName(), data);
+				}
+			}
+		} finally {
+			IOException exception = null;
+
+			for (ZipOutputStream zos : opened) {
+				try {
+					zos.close();
+				} catch (IOException e) {
+					if (exception == null) {
+						exception = e;
+					}
+				}
+			}
+
+			if (exception != null) {
+				throw exception;
+			}
+		}
+
+		return shards;
+	}
+
+	/**
+	 * Assigns packages to shards, the largest packages are assigned first to the smallest shard so far.
+	 *
+	 * <p>Also used to balance groups of classes between the threads of a single decompiler.
+	 */
+	public static List<List<String>> partition(Map<String, Long> packageSizes, int shardCount) {
+		final List<Map.Entry<String, Long>> packages = new ArrayList<>(packageSizes.entrySet());
+		packages.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+		final int count = Math.min(Math.max(shardCount, 1), packages.size());
+		final List<List<String>> partitions = new ArrayList<>(count);
+		final long[] sizes = new long[count];
+
+		for (int i = 0; i < count; i++) {
+			partitions.add(new ArrayList<>());
+		}
+
+		for (Map.Entry<String, Long> entry : packages) {
+			int smallest = 0;
+
+			for (int i = 1; i < count; i++) {
+				if (sizes[i] < sizes[smallest]) {
+					smallest = i;
+				}
+			}
+
+			partitions.get(smallest).add(entry.getKey());
+			sizes[smallest] += entry.getValue();
+		}
+
+		return partitions;
+	}
+
+	/**
+	 * Merges the decompiled sources of every shard into a single jar, ordered by entry name.
+	 */
+	public static void mergeSources(List<Shard> shards, Path outputJar) throws IOException {
+		final List<ZipFile> zipFiles = new ArrayList<>();
+
+		try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(outputJar))) {
+			final Map<String, ZipFile> entries = new TreeMap<>();
+
+			for (Shard shard : shards) {
+				final ZipFile zipFile = new ZipFile(shard.sourcesJar().toFile());
+				zipFiles.add(zipFile);
+
+				for (ZipEntry entry : Collections.list(zipFile.entries())) {
+					if (!entry.isDirectory()) {
+						entries.putIfAbsent(entry.getName(), zipFile);
+					}
+				}
+			}
+
+			for (Map.Entry<String, ZipFile> entry : entries.entrySet()) {
+				final ZipFile zipFile = entry.getValue();
+
+				try (InputStream is = zipFile.getInputStream(zipFile.getEntry(entry.getKey()))) {
+					writeEntry(zos, entry.getKey(), is.readAllBytes());
+				}
+			}
+		} finally {
+			for (ZipFile zipFile : zipFiles) {
+				zipFile.close();
+			}
+		}
+	}
+
+	/**
+	 * Merges the line maps of every shard into a single line map, ordered by class name.
+	 *
+	 * @return false when the decompiler did not produce any line maps
+	 */
+	public static boolean mergeLineMaps(List<Shard> shards, Path outputLineMap) throws IOException {
+		final Map<String, String> classes = new TreeMap<>();
+		boolean found = false;
+
+		for (Shard shard : shards) {
+			if (Files.notExists(shard.lineMap())) {
+				continue;
+			}
+
+			found = true;
+
+			try (BufferedReader reader = Files.newBufferedReader(shard.lineMap(), StandardCharsets.UTF_8)) {
+				StringBuilder block = null;
+				String className = null;
+				String line;
+
+				while ((line = reader.readLine()) != null) {
+					if (line.isEmpty()) {
+						continue;
+					}
+
+					if (line.charAt(0) != '\t') {
+						if (className != null) {
+							classes.putIfAbsent(className, block.toString());
+						}
+
+						className = line.substring(0, line.indexOf('\t'));
+						block = new StringBuilder();
+					}
+
+					if (block != null) {
+						block.append(line).append('\n');
+					}
+				}
+
+				if (className != null) {
+					classes.putIfAbsent(className, block.toString());
+				}
+			}
+		}
+
+		if (!found) {
+			return false;
+		}
+
+		try (BufferedWriter writer = Files.newBufferedWriter(outputLineMap, StandardCharsets.UTF_8)) {
+			for (String block : classes.values()) {
+				writer.write(block);
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isSelected(String className, @Nullable Set<String> groups) {
+		return groups == null || groups.contains(IncrementalDecompilation.getGroup(className));
+	}
+
+	private static String getPackage(String className) {
+		final int slashPos = className.lastIndexOf('/');
+		return slashPos >= 0 ? className.substring(0, slashPos) : "";
+	}
+
+	private static ZipOutputStream open(Path path, List<ZipOutputStream> opened) throws IOException {
+		final ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(path));
+		opened.add(zos);
+		return zos;
+	}
+
+	private static void writeEntry(ZipOutputStream zos, String name, byte[] data) throws IOException {
+		zos.putNextEntry(new ZipEntry(name));
+		zos.write(data);
+		zos.closeEntry();
+	}
+
+	/**
+	 * @param index the position of the shard, used to keep its output apart from the other shards
+	 * @param inputJar the classes to decompile
+	 * @param libraryJar the classes of every other shard, or null when there are none
+	 */
+	public record Shard(int index, Path inputJar, @Nullable Path libraryJar, Path sourcesJar, Path lineMap) {
+	}
+}
@@ -24,13 +24,9 @@
 
 package net.fabricmc.loom.decompilers.cfr;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -45,17 +41,13 @@ import org.benf.cfr.reader.mapping.NullMapping;
 import org.benf.cfr.reader.util.output.DelegatingDumper;
 import org.benf.cfr.reader.util.output.Dumper;
 
-import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
-import net.fabricmc.mappingio.MappingReader;
-import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
-import net.fabricmc.mappingio.tree.MappingTree;
-import net.fabricmc.mappingio.tree.MemoryMappingTree;
+import net.fabricmc.loom.decompilers.JavadocIndex;
 
 public class CFRObfuscationMapping extends NullMapping {
-	private final MappingTree mappingTree;
+	private final JavadocIndex javadocIndex;
 
 	public CFRObfuscationMapping(Path mappings) {
-		mappingTree = readMappings(mappings);
+		javadocIndex = readJavadocIndex(mappings);
 	}
 
 	@Override
@@ -63,13 +55,9 @@ public class CFRObfuscationMapping extends NullMapping {
 		return new JavadocProvidingDumper(d);
 	}
 
-	private static MappingTree readMappings(Path input) {
-		try (BufferedReader reader = Files.newBufferedReader(input)) {
-			MemoryMappingTree mappingTree = new MemoryMappingTree();
-			MappingSourceNsSwitch nsSwitch = new MappingSourceNsSwitch(mappingTree, MappingsNamespace.NAMED.toString());
-			MappingReader.read(reader, nsSwitch);
-
-			return mappingTree;
+	private static JavadocIndex readJavadocIndex(Path input) {
+		try {
+			return JavadocIndex.open(input);
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to read mappings", e);
 		}
@@ -82,12 +70,7 @@ public class CFRObfuscationMapping extends NullMapping {
 
 		@Override
 		public Dumper dumpClassDoc(JavaTypeInstance owner) {
-			MappingTree.ClassMapping mapping = getClassMapping(owner);
-
-			if (mapping == null) {
-				return this;
-			}
-
+			String className = getClassName(owner);
 			List<String> recordComponentDocs = new LinkedList<>();
 
 			if (isRecord(owner)) {
@@ -98,21 +81,15 @@ public class CFRObfuscationMapping extends NullMapping {
 						continue;
 					}
 
-					MappingTree.FieldMapping fieldMapping = mapping.getField(field.getFieldName(), field.getField().getDescriptor());
-
-					if (fieldMapping == null) {
-						continue;
-					}
-
-					String comment = fieldMapping.getComment();
+					String comment = javadocIndex.getFieldDoc(className, field.getFieldName(), field.getField().getDescriptor());
 
 					if (comment != null) {
-						recordComponentDocs.add(String.format("@param %s %s", fieldMapping.getSrcName(), comment));
+						recordComponentDocs.add(String.format("@param %s %s", field.getFieldName(), comment));
 					}
 				}
 			}
 
-			String comment = mapping.getComment();
+			String comment = javadocIndex.getClassDoc(className);
 
 			if (comment != null || !recordComponentDocs.isEmpty()) {
 				print("/**").newln();
@@ -143,40 +120,9 @@ public class CFRObfuscationMapping extends NullMapping {
 
 		@Override
 		public Dumper dumpMethodDoc(MethodPrototype method) {
-			MappingTree.ClassMapping classMapping = getClassMapping(method.getOwner());
-
-			if (classMapping == null) {
-				return this;
-			}
-
-			List<String> lines = new ArrayList<>();
-			MappingTree.MethodMapping mapping = classMapping.getMethod(method.getName(), method.getOriginalDescriptor());
-
-			if (mapping != null) {
-				String comment = mapping.getComment();
-
-				if (comment != null) {
-					lines.addAll(Arrays.asList(comment.split("\\R")));
-				}
-
-				final Collection<? extends MappingTree.MethodArgMapping> methodArgs = mapping.getArgs();
-				final List<String> params = new ArrayList<>();
-
-				for (MappingTree.MethodArgMapping arg : methodArgs) {
-					String argComment = arg.getComment();
-
-					if (argComment != null) {
-						params.addAll(Arrays.asList(("@param " + arg.getSrcName() + " " + argComment).split("\\R")));
-					}
-				}
-
-				// Add a blank line between params and the comment.
-				if (!lines.isEmpty() && !params.isEmpty()) {
-					lines.add("");
-				}
-
-				lines.addAll(params);
-			}
+			// The method doc already includes the docs of its parameters.
+			String doc = javadocIndex.getMethodDoc(getClassName(method.getOwner()), method.getName(), method.getOriginalDescriptor());
+			List<String> lines = doc != null ? Arrays.asList(doc.split("\\R")) : List.of();
 
 			if (!lines.isEmpty()) {
 				print("/**").newln();
@@ -198,24 +144,12 @@ public class CFRObfuscationMapping extends NullMapping {
 				return this;
 			}
 
-			MappingTree.ClassMapping classMapping = getClassMapping(owner);
-
-			if (classMapping == null) {
-				return this;
-			}
-
-			MappingTree.FieldMapping fieldMapping = classMapping.getField(field.getFieldName(), field.getDescriptor());
-
-			if (fieldMapping != null) {
-				dumpComment(fieldMapping.getComment());
-			}
-
+			dumpComment(javadocIndex.getFieldDoc(getClassName(owner), field.getFieldName(), field.getDescriptor()));
 			return this;
 		}
 
-		private MappingTree.ClassMapping getClassMapping(JavaTypeInstance type) {
-			String qualifiedName = type.getRawName().replace('.', '/');
-			return mappingTree.getClass(qualifiedName);
+		private String getClassName(JavaTypeInstance type) {
+			return type.getRawName().replace('.', '/');
 		}
 
 		private boolean isRecord(JavaTypeInstance javaTypeInstance) {
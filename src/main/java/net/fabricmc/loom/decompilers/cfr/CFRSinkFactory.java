@@ -25,17 +25,15 @@
 package net.fabricmc.loom.decompilers.cfr;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.base.Charsets;
 import org.benf.cfr.reader.api.OutputSinkFactory;
@@ -43,17 +41,19 @@ import org.benf.cfr.reader.api.SinkReturns;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.fabricmc.loom.util.ConcurrentZipWriter;
 import net.fabricmc.loom.util.IOStringConsumer;
 
 public class CFRSinkFactory implements OutputSinkFactory {
 	private static final Logger ERROR_LOGGER = LoggerFactory.getLogger(CFRSinkFactory.class);
 
-	private final JarOutputStream outputStream;
+	private final ConcurrentZipWriter outputStream;
 	private final IOStringConsumer logger;
-	private final Set<String> addedDirectories = new HashSet<>();
-	private final Map<String, Map<Integer, Integer>> lineMap = new TreeMap<>();
+	private final Set<String> addedDirectories = ConcurrentHashMap.newKeySet();
+	// Pairs of original and decompiled line numbers, in the order they were reported
+	private final Map<String, int[]> lineMap = new ConcurrentHashMap<>();
 
-	public CFRSinkFactory(JarOutputStream outputStream, IOStringConsumer logger) {
+	public CFRSinkFactory(ConcurrentZipWriter outputStream, IOStringConsumer logger) {
 		this.outputStream = outputStream;
 		this.logger = logger;
 	}
@@ -97,6 +97,9 @@ public class CFRSinkFactory implements OutputSinkFactory {
 
 			if (classFileMappings == null || mappings == null) return;
 
+			final int[] pairs = new int[mappings.size() * 2];
+			int size = 0;
+
 			for (Map.Entry<Integer, Integer> entry : mappings.entrySet()) {
 				// New line number
 				Integer dstLineNumber = entry.getValue();
@@ -106,46 +109,79 @@ public class CFRSinkFactory implements OutputSinkFactory {
 
 				if (srcLineNumber == null || dstLineNumber == null) continue;
 
-				lineMap.computeIfAbsent(className, (c) -> new TreeMap<>()).put(srcLineNumber, dstLineNumber);
+				pairs[size++] = srcLineNumber;
+				pairs[size++] = dstLineNumber;
 			}
+
+			if (size == 0) return;
+
+			lineMap.merge(className, Arrays.copyOf(pairs, size), CFRSinkFactory::concat);
 		};
 	}
 
-	private synchronized void writeToJar(String filename, byte[] data) {
-		String[] path = filename.split("/");
-		String pathPart = "";
-
-		for (int i = 0; i < path.length - 1; i++) {
-			pathPart += path[i] + "/";
+	// Compresses the entry on the calling thread, only the append to the jar is serialised.
+	private void writeToJar(String filename, byte[] data) {
+		try {
+			int slashPos = -1;
 
-			if (addedDirectories.add(pathPart)) {
-				JarEntry entry = new JarEntry(pathPart);
-				entry.setTime(new Date().getTime());
+			while ((slashPos = filename.indexOf('/', slashPos + 1)) >= 0) {
+				String pathPart = filename.substring(0, slashPos + 1);
 
-				try {
-					outputStream.putNextEntry(entry);
-					outputStream.closeEntry();
-				} catch (IOException e) {
-					throw new RuntimeException(e);
+				if (addedDirectories.add(pathPart)) {
+					outputStream.putDirectory(pathPart);
 				}
 			}
-		}
 
-		JarEntry entry = new JarEntry(filename);
-		entry.setTime(new Date().getTime());
-		entry.setSize(data.length);
-
-		try {
 			logger.accept("Writing: " + filename);
-			outputStream.putNextEntry(entry);
-			outputStream.write(data);
-			outputStream.closeEntry();
+			outputStream.putEntry(filename, data);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	public Map<String, Map<Integer, Integer>> getLineMap() {
-		return Collections.unmodifiableMap(lineMap);
+	/**
+	 * @return the line map of each class, as pairs of original and decompiled line numbers sorted by the original line.
+	 * When an original line is mapped more than once the last mapping is kept.
+	 */
+	public Map<String, int[]> getLineMap() {
+		final Map<String, int[]> sorted = new HashMap<>();
+
+		for (Map.Entry<String, int[]> entry : lineMap.entrySet()) {
+			sorted.put(entry.getKey(), sortLines(entry.getValue()));
+		}
+
+		return Collections.unmodifiableMap(sorted);
+	}
+
+	private static int[] concat(int[] a, int[] b) {
+		final int[] result = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+	static int[] sortLines(int[] pairs) {
+		// Sort by the original line, then by the order reported so that the last mapping of a line can be kept.
+		final long[] order = new long[pairs.length / 2];
+
+		for (int i = 0; i < order.length; i++) {
+			order[i] = ((long) pairs[i * 2] << 32) | i;
+		}
+
+		Arrays.sort(order);
+
+		final int[] result = new int[pairs.length];
+		int size = 0;
+
+		for (int i = 0; i < order.length; i++) {
+			if (i + 1 < order.length && (order[i + 1] >>> 32) == (order[i] >>> 32)) {
+				continue;
+			}
+
+			final int index = (int) order[i];
+			result[size++] = pairs[index * 2];
+			result[size++] = pairs[index * 2 + 1];
+		}
+
+		return Arrays.copyOf(result, size);
 	}
 }
@@ -24,18 +24,26 @@
 
 package net.fabricmc.loom.decompilers.cfr;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Locale;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Attributes;
-import java.util.jar.JarOutputStream;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.benf.cfr.reader.Driver;
 import org.benf.cfr.reader.state.ClassFileSourceImpl;
@@ -47,8 +55,14 @@ import org.benf.cfr.reader.util.output.SinkDumperFactory;
 
 import net.fabricmc.loom.api.decompilers.DecompilationMetadata;
 import net.fabricmc.loom.api.decompilers.LoomDecompiler;
+import net.fabricmc.loom.decompilers.LineMapWriter;
+import net.fabricmc.loom.decompilers.ShardedDecompilation;
+import net.fabricmc.loom.util.ConcurrentZipWriter;
 
 public final class LoomCFRDecompiler implements LoomDecompiler {
+	private static final String JAR_FILTER = "jarfilter";
+	// A rough upper bound of the heap used by a single CFR driver, each loads the Minecraft jar and its libraries.
+	private static final long MEMORY_PER_THREAD = 1024L * 1024 * 1024;
 	private static final Map<String, String> DECOMPILE_OPTIONS = Map.of(
 			"renameillegalidents", "true",
 			"trackbytecodeloc", "true",
@@ -57,10 +71,37 @@ public final class LoomCFRDecompiler implements LoomDecompiler {
 
 	@Override
 	public void decompile(Path compiledJar, Path sourcesDestination, Path linemapDestination, DecompilationMetadata metaData) {
-		final String path = compiledJar.toAbsolutePath().toString();
 		final Map<String, String> allOptions = new HashMap<>(DECOMPILE_OPTIONS);
 		allOptions.putAll(metaData.options());
 
+		final Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+		final CFRSinkFactory cfrSinkFactory;
+
+		try (ConcurrentZipWriter outputStream = new ConcurrentZipWriter(sourcesDestination)) {
+			final ByteArrayOutputStream manifestData = new ByteArrayOutputStream();
+			manifest.write(manifestData);
+			outputStream.putEntry(JarFile.MANIFEST_NAME, manifestData.toByteArray());
+
+			cfrSinkFactory = new CFRSinkFactory(outputStream, metaData.logger());
+
+			// A user supplied filter cannot be combined with the filters used to split the jar between threads.
+			final int threads = allOptions.containsKey(JAR_FILTER) ? 1 : getMaxThreads(metaData.numberOfThreads());
+
+			if (threads <= 1) {
+				decompile(compiledJar, allOptions, metaData, cfrSinkFactory);
+			} else {
+				decompileParallel(compiledJar, allOptions, metaData, cfrSinkFactory, threads);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to decompile", e);
+		}
+
+		writeLineMap(linemapDestination, cfrSinkFactory.getLineMap());
+	}
+
+	private static void decompile(Path compiledJar, Map<String, String> allOptions, DecompilationMetadata metaData, CFRSinkFactory cfrSinkFactory) {
 		final Options options = OptionsImpl.getFactory().create(allOptions);
 
 		ClassFileSourceImpl classFileSource = new ClassFileSourceImpl(options);
@@ -77,50 +118,102 @@ public final class LoomCFRDecompiler implements LoomDecompiler {
 			state = new DCCommonState(state, new CFRObfuscationMapping(metaData.javaDocs()));
 		}
 
-		final Manifest manifest = new Manifest();
-		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		SinkDumperFactory dumperFactory = new SinkDumperFactory(cfrSinkFactory, options);
 
-		Map<String, Map<Integer, Integer>> lineMap;
+		Driver.doJar(state, compiledJar.toAbsolutePath().toString(), AnalysisType.JAR, dumperFactory);
+	}
 
-		try (JarOutputStream outputStream = new JarOutputStream(Files.newOutputStream(sourcesDestination), manifest)) {
-			CFRSinkFactory cfrSinkFactory = new CFRSinkFactory(outputStream, metaData.logger());
-			SinkDumperFactory dumperFactory = new SinkDumperFactory(cfrSinkFactory, options);
+	/**
+	 * Bounds the number of threads by the heap, so that the decompiler does not run out of memory with many cores and a small heap.
+	 */
+	private static int getMaxThreads(int threads) {
+		final long maxMemory = Runtime.getRuntime().maxMemory();
+		final int byMemory = maxMemory == Long.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(1, maxMemory / MEMORY_PER_THREAD);
+		return Math.max(1, Math.min(threads, byMemory));
+	}
 
-			Driver.doJar(state, path, AnalysisType.JAR, dumperFactory);
+	/**
+	 * CFR's driver is single threaded, so the classes are split between threads that each run their own driver and state,
+	 * restricted to their classes with a jar filter. The threads share the sink factory, and so the output jar and line map.
+	 */
+	private static void decompileParallel(Path compiledJar, Map<String, String> allOptions, DecompilationMetadata metaData, CFRSinkFactory cfrSinkFactory, int threads) throws IOException {
+		final List<List<String>> partitions = ShardedDecompilation.partition(getClassGroupSizes(compiledJar), threads);
 
-			lineMap = cfrSinkFactory.getLineMap();
-		} catch (IOException e) {
-			throw new UncheckedIOException("Failed to decompile", e);
+		if (partitions.size() <= 1) {
+			decompile(compiledJar, allOptions, metaData, cfrSinkFactory);
+			return;
 		}
 
-		writeLineMap(linemapDestination, lineMap);
-	}
+		ExecutorService executor = Executors.newFixedThreadPool(partitions.size());
 
-	private void writeLineMap(Path output, Map<String, Map<Integer, Integer>> lineMap) {
-		try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
-			for (Map.Entry<String, Map<Integer, Integer>> classEntry : lineMap.entrySet()) {
-				final String name = classEntry.getKey().replace(".", "/");
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
 
-				final Map<Integer, Integer> mapping = classEntry.getValue();
+			for (List<String> partition : partitions) {
+				final Map<String, String> partitionOptions = new HashMap<>(allOptions);
+				partitionOptions.put(JAR_FILTER, getJarFilter(partition));
+				futures.add(executor.submit(() -> decompile(compiledJar, partitionOptions, metaData, cfrSinkFactory)));
+			}
 
-				int maxLine = 0;
-				int maxLineDest = 0;
-				StringBuilder builder = new StringBuilder();
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while decompiling", e);
+				} catch (ExecutionException e) {
+					throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 
-				for (Map.Entry<Integer, Integer> mappingEntry : mapping.entrySet()) {
-					final int src = mappingEntry.getKey();
-					final int dst = mappingEntry.getValue();
+	/**
+	 * The size of the classes in the jar, grouped by the outer class name so that each class is decompiled on the same thread as its inner classes.
+	 */
+	static Map<String, Long> getClassGroupSizes(Path jar) throws IOException {
+		final Map<String, Long> sizes = new HashMap<>();
 
-					maxLine = Math.max(maxLine, src);
-					maxLineDest = Math.max(maxLineDest, dst);
+		try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+			for (ZipEntry entry : Collections.list(zipFile.entries())) {
+				final String name = entry.getName();
 
-					builder.append("\t").append(src).append("\t").append(dst).append("\n");
+				if (entry.isDirectory() || !name.endsWith(".class")) {
+					continue;
 				}
 
-				writer.write(String.format(Locale.ENGLISH, "%s\t%d\t%d\n", name, maxLine, maxLineDest));
-				writer.write(builder.toString());
-				writer.write("\n");
+				final String className = name.substring(0, name.length() - ".class".length()).replace('/', '.');
+				final int innerClass = className.indexOf('$', className.lastIndexOf('.') + 1);
+				final String group = innerClass >= 0 ? className.substring(0, innerClass) : className;
+
+				sizes.merge(group, Math.max(entry.getSize(), 1L), Long::sum);
 			}
+		}
+
+		return sizes;
+	}
+
+	/**
+	 * A filter matching the classes in the given groups, CFR matches it against the dotted name of each class in the jar.
+	 */
+	static String getJarFilter(List<String> groups) {
+		return groups.stream()
+				.sorted()
+				.map(Pattern::quote)
+				.collect(Collectors.joining("|", "^(?:", ")(?:\\$.*)?$"));
+	}
+
+	private void writeLineMap(Path output, Map<String, int[]> lineMap) {
+		final LineMapWriter writer = new LineMapWriter();
+
+		for (Map.Entry<String, int[]> classEntry : lineMap.entrySet()) {
+			writer.add(classEntry.getKey().replace(".", "/"), classEntry.getValue());
+		}
+
+		try {
+			writer.write(output);
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to write line map", e);
 		}
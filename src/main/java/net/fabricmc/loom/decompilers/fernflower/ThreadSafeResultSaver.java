@@ -24,39 +24,34 @@
 
 package net.fabricmc.loom.decompilers.fernflower;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
-import java.util.jar.JarOutputStream;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 
 import net.fabricmc.fernflower.api.IFabricResultSaver;
+import net.fabricmc.loom.decompilers.LineMapWriter;
+import net.fabricmc.loom.util.ConcurrentZipWriter;
 
 /**
  * Created by covers1624 on 18/02/19.
+ *
+ * <p>Entries are compressed on the decompiler threads that produce them, only appending the compressed data to the archive is serialised.
  */
 public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 	private final Supplier<File> output;
 	private final Supplier<File> lineMapFile;
 
-	public Map<String, ZipOutputStream> outputStreams = new HashMap<>();
-	public Map<String, ExecutorService> saveExecutors = new HashMap<>();
-	public PrintWriter lineMapWriter;
+	private final Map<String, ConcurrentZipWriter> archives = new ConcurrentHashMap<>();
+	private LineMapWriter lineMapWriter;
 
 	public ThreadSafeResultSaver(Supplier<File> output, Supplier<File> lineMapFile) {
 		this.output = output;
@@ -69,20 +64,20 @@ public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 		File file = output.get();
 
 		try {
-			FileOutputStream fos = new FileOutputStream(file);
-			ZipOutputStream zos = manifest == null ? new ZipOutputStream(fos) : new JarOutputStream(fos, manifest);
-			outputStreams.put(key, zos);
-			saveExecutors.put(key, Executors.newSingleThreadExecutor());
+			ConcurrentZipWriter writer = new ConcurrentZipWriter(file.toPath());
+			archives.put(key, writer);
+
+			if (manifest != null) {
+				ByteArrayOutputStream manifestData = new ByteArrayOutputStream();
+				manifest.write(manifestData);
+				writer.putEntry(JarFile.MANIFEST_NAME, manifestData.toByteArray());
+			}
 		} catch (IOException e) {
 			throw new RuntimeException("Unable to create archive: " + file, e);
 		}
 
 		if (lineMapFile.get() != null) {
-			try {
-				lineMapWriter = new PrintWriter(new FileWriter(lineMapFile.get()));
-			} catch (IOException e) {
-				throw new RuntimeException("Unable to create line mapping file: " + lineMapFile.get(), e);
-			}
+			lineMapWriter = new LineMapWriter();
 		}
 	}
 
@@ -94,64 +89,38 @@ public class ThreadSafeResultSaver implements IResultSaver, IFabricResultSaver {
 	@Override
 	public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content, int[] mapping) {
 		String key = path + "/" + archiveName;
-		ExecutorService executor = saveExecutors.get(key);
-		executor.submit(() -> {
-			ZipOutputStream zos = outputStreams.get(key);
-
-			try {
-				zos.putNextEntry(new ZipEntry(entryName));
-
-				if (content != null) {
-					zos.write(content.getBytes(StandardCharsets.UTF_8));
-				}
-			} catch (IOException e) {
-				DecompilerContext.getLogger().writeMessage("Cannot write entry " + entryName, e);
-			}
+		ConcurrentZipWriter writer = archives.get(key);
 
-			if (mapping != null && lineMapWriter != null) {
-				int maxLine = 0;
-				int maxLineDest = 0;
-				StringBuilder builder = new StringBuilder();
-
-				for (int i = 0; i < mapping.length; i += 2) {
-					maxLine = Math.max(maxLine, mapping[i]);
-					maxLineDest = Math.max(maxLineDest, mapping[i + 1]);
-					builder.append("\t").append(mapping[i]).append("\t").append(mapping[i + 1]).append("\n");
-				}
+		try {
+			writer.putEntry(entryName, content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+		} catch (IOException e) {
+			DecompilerContext.getLogger().writeMessage("Cannot write entry " + entryName, e);
+		}
 
-				lineMapWriter.println(qualifiedName + "\t" + maxLine + "\t" + maxLineDest);
-				lineMapWriter.println(builder.toString());
-			}
-		});
+		if (mapping != null && lineMapWriter != null) {
+			lineMapWriter.add(qualifiedName, mapping);
+		}
 	}
 
 	@Override
 	public void closeArchive(String path, String archiveName) {
 		String key = path + "/" + archiveName;
-		ExecutorService executor = saveExecutors.get(key);
-		Future<?> closeFuture = executor.submit(() -> {
-			ZipOutputStream zos = outputStreams.get(key);
-
-			try {
-				zos.close();
-			} catch (IOException e) {
-				throw new RuntimeException("Unable to close zip. " + key, e);
-			}
-		});
-		executor.shutdown();
+		ConcurrentZipWriter writer = archives.remove(key);
 
 		try {
-			closeFuture.get();
-		} catch (InterruptedException | ExecutionException e) {
-			throw new RuntimeException(e);
+			writer.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to close zip. " + key, e);
 		}
 
-		outputStreams.remove(key);
-		saveExecutors.remove(key);
-
 		if (lineMapWriter != null) {
-			lineMapWriter.flush();
-			lineMapWriter.close();
+			try {
+				lineMapWriter.write(lineMapFile.get().toPath());
+			} catch (IOException e) {
+				throw new RuntimeException("Unable to write line mapping file: " + lineMapFile.get(), e);
+			}
+
+			lineMapWriter = null;
 		}
 	}
 
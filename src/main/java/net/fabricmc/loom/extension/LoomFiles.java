@@ -50,4 +50,7 @@ public interface LoomFiles {
 	File getRemapClasspathFile();
 	File getGlobalMinecraftRepo();
 	File getLocalMinecraftRepo();
+	File getProcessedMinecraftStore();
+	File getDecompiledSourcesCache();
+	File getDecompileMappingsCache();
 }
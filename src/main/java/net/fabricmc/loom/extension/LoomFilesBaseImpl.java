@@ -107,4 +107,19 @@ public abstract class LoomFilesBaseImpl implements LoomFiles {
 	public File getLocalMinecraftRepo() {
 		return new File(getRootProjectPersistentCache(), "minecraftMaven");
 	}
+
+	@Override
+	public File getProcessedMinecraftStore() {
+		return new File(getRootProjectPersistentCache(), "processed-minecraft");
+	}
+
+	@Override
+	public File getDecompiledSourcesCache() {
+		return new File(getRootProjectPersistentCache(), "decompiled-sources");
+	}
+
+	@Override
+	public File getDecompileMappingsCache() {
+		return new File(getRootProjectPersistentCache(), "decompile-mappings");
+	}
 }
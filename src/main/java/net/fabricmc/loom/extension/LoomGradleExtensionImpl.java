@@ -49,6 +49,7 @@ import net.fabricmc.loom.configuration.providers.minecraft.mapped.NamedMinecraft
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.download.Download;
 import net.fabricmc.loom.util.download.DownloadBuilder;
+import net.fabricmc.loom.util.download.DownloadTransportService;
 import net.fabricmc.loom.util.gradle.GradleUtils;
 
 public class LoomGradleExtensionImpl extends LoomGradleExtensionApiImpl implements LoomGradleExtension {
@@ -67,6 +68,7 @@ public class LoomGradleExtensionImpl extends LoomGradleExtensionApiImpl implemen
 	private InstallerData installerData;
 	private boolean refreshDeps;
 	private Provider<Boolean> multiProjectOptimisation;
+	private final Provider<DownloadTransportService> downloadTransportService;
 
 	public LoomGradleExtensionImpl(Project project, LoomFiles files) {
 		super(project, files);
@@ -75,6 +77,7 @@ public class LoomGradleExtensionImpl extends LoomGradleExtensionApiImpl implemen
 		this.mixinApExtension = project.getObjects().newInstance(MixinExtensionImpl.class, project);
 		this.loomFiles = files;
 		this.unmappedMods = project.files();
+		this.downloadTransportService = DownloadTransportService.get(project);
 
 		// Setup the default intermediate mappings provider.
 		setIntermediateMappingsProvider(IntermediaryMappingsProvider.class, provider -> {
@@ -206,6 +209,8 @@ public class LoomGradleExtensionImpl extends LoomGradleExtensionApiImpl implemen
 			throw new RuntimeException("Failed to create downloader for: " + e);
 		}
 
+		builder.transport(downloadTransportService.get().getTransport());
+
 		if (project.getGradle().getStartParameter().isOffline()) {
 			builder.offline();
 		}
@@ -64,6 +64,7 @@ import org.jetbrains.annotations.ApiStatus;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.task.service.JarManifestService;
+import net.fabricmc.loom.util.JarAssembler;
 import net.fabricmc.loom.util.ZipReprocessorUtil;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.gradle.SourceSetHelper;
@@ -185,18 +186,26 @@ public abstract class AbstractRemapJarTask extends Jar {
 		}
 
 		protected void modifyJarManifest() throws IOException {
-			int count = ZipUtils.transform(outputFile, Map.of(MANIFEST_PATH, bytes -> {
-				var manifest = new Manifest(new ByteArrayInputStream(bytes));
+			int count = ZipUtils.transform(outputFile, Map.of(MANIFEST_PATH, this::modifyJarManifest));
 
-				getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
-				manifest.getMainAttributes().putValue(MANIFEST_NAMESPACE_KEY, getParameters().getTargetNamespace().get());
+			Preconditions.checkState(count > 0, "Did not transform any jar manifest");
+		}
 
-				ByteArrayOutputStream out = new ByteArrayOutputStream();
-				manifest.write(out);
-				return out.toByteArray();
-			}));
+		protected void modifyJarManifest(JarAssembler jar) throws IOException {
+			boolean transformed = jar.transform(MANIFEST_PATH, this::modifyJarManifest);
 
-			Preconditions.checkState(count > 0, "Did not transform any jar manifest");
+			Preconditions.checkState(transformed, "Did not transform any jar manifest");
+		}
+
+		private byte[] modifyJarManifest(byte[] bytes) throws IOException {
+			var manifest = new Manifest(new ByteArrayInputStream(bytes));
+
+			getParameters().getJarManifestService().get().apply(manifest, getParameters().getManifestAttributes().get());
+			manifest.getMainAttributes().putValue(MANIFEST_NAMESPACE_KEY, getParameters().getTargetNamespace().get());
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			manifest.write(out);
+			return out.toByteArray();
 		}
 
 		protected void rewriteJar() throws IOException {
@@ -207,6 +216,16 @@ public abstract class AbstractRemapJarTask extends Jar {
 				ZipReprocessorUtil.reprocessZip(outputFile.toFile(), isReproducibleFileOrder, isPreserveFileTimestamps);
 			}
 		}
+
+		/**
+		 * Writes the assembled jar to the output file, applying the archive's file order and timestamp settings as it is written.
+		 */
+		protected void writeJar(JarAssembler jar) throws IOException {
+			final boolean isReproducibleFileOrder = getParameters().getArchiveReproducibleFileOrder().get();
+			final boolean isPreserveFileTimestamps = getParameters().getArchivePreserveFileTimestamps().get();
+
+			jar.write(outputFile, isReproducibleFileOrder, isPreserveFileTimestamps);
+		}
 	}
 
 	@Deprecated
@@ -27,6 +27,8 @@ package net.fabricmc.loom.task;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 import javax.inject.Inject;
@@ -43,8 +45,11 @@ import net.fabricmc.loom.configuration.ide.RunConfigSettings;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftProvider;
 import net.fabricmc.loom.configuration.providers.minecraft.MinecraftVersionMeta;
 import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetIndex;
+import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetValidationIndex;
+import net.fabricmc.loom.util.ContentAddressedStore;
 import net.fabricmc.loom.util.MirrorUtil;
 import net.fabricmc.loom.util.download.DownloadExecutor;
+import net.fabricmc.loom.util.download.DownloadTransportService;
 import net.fabricmc.loom.util.download.GradleDownloadProgressListener;
 import net.fabricmc.loom.util.gradle.ProgressGroup;
 
@@ -86,25 +91,60 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 		getAssetsHash().finalizeValue();
 		getAssetsDirectory().finalizeValueOnRead();
 		getLegacyResourcesDirectory().finalizeValueOnRead();
+
+		// All asset downloads share the build's pooled connections.
+		usesService(DownloadTransportService.get(getProject()));
 	}
 
 	@TaskAction
 	public void downloadAssets() throws IOException {
 		final AssetIndex assetIndex = getAssetIndex();
+		final ContentAddressedStore objectStore = getObjectStore();
+		final Path validationIndexPath = getIndexFile(".validation").toPath();
+		final AssetValidationIndex validationIndex = getExtension().refreshDeps() ? AssetValidationIndex.empty() : AssetValidationIndex.read(validationIndexPath);
+		final Map<String, Path> downloads = new HashMap<>();
 
 		try (ProgressGroup progressGroup = new ProgressGroup(getProject(), "Download Assets");
 				DownloadExecutor executor = new DownloadExecutor(getDownloadThreads().get())) {
 			for (AssetIndex.Object object : assetIndex.getObjects()) {
 				final String sha1 = object.hash();
+				final Path objectPath = objectStore.getPath(sha1);
+
+				if (downloads.containsKey(sha1) || validationIndex.isValid(objectPath, sha1)) {
+					// Identical objects are only downloaded once, and objects that are unchanged since they were last validated are skipped.
+					continue;
+				}
+
 				final String url = MirrorUtil.getResourcesBase(getProject()) + sha1.substring(0, 2) + "/" + sha1;
+				downloads.put(sha1, objectPath);
 
 				getExtension()
 						.download(url)
 						.sha1(sha1)
 						.progress(new GradleDownloadProgressListener(object.name(), progressGroup::createProgressLogger))
-						.downloadPathAsync(getAssetsPath(object, assetIndex), executor);
+						.downloadPathAsync(objectPath, executor);
+			}
+		}
+
+		for (Map.Entry<String, Path> entry : downloads.entrySet()) {
+			validationIndex.update(entry.getValue(), entry.getKey());
+		}
+
+		if (assetIndex.mapToResources() || assetIndex.virtual()) {
+			// Legacy layouts are materialised from the object store, rather than being downloaded again for each version or project.
+			for (AssetIndex.Object object : assetIndex.getObjects()) {
+				final Path legacyPath = getLegacyAssetsPath(object);
+
+				if (validationIndex.isValid(legacyPath, object.hash())) {
+					continue;
+				}
+
+				objectStore.materialise(object.hash(), legacyPath);
+				validationIndex.update(legacyPath, object.hash());
 			}
 		}
+
+		validationIndex.write(validationIndexPath);
 	}
 
 	private MinecraftVersionMeta.AssetIndex getAssetIndexMeta() {
@@ -114,9 +154,8 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 
 	private AssetIndex getAssetIndex() throws IOException {
 		final LoomGradleExtension extension = getExtension();
-		final MinecraftProvider minecraftProvider = extension.getMinecraftProvider();
 		final MinecraftVersionMeta.AssetIndex assetIndex = getAssetIndexMeta();
-		final File indexFile = new File(getAssetsDirectory().get().getAsFile(), "indexes" + File.separator + assetIndex.fabricId(minecraftProvider.minecraftVersion()) + ".json");
+		final File indexFile = getIndexFile(".json");
 
 		final String json = extension.download(assetIndex.url())
 				.sha1(assetIndex.sha1())
@@ -125,12 +164,18 @@ public abstract class DownloadAssetsTask extends AbstractLoomTask {
 		return LoomGradlePlugin.OBJECT_MAPPER.readValue(json, AssetIndex.class);
 	}
 
-	private Path getAssetsPath(AssetIndex.Object object, AssetIndex index) {
-		if (index.mapToResources() || index.virtual()) {
-			return new File(getLegacyResourcesDirectory().get().getAsFile(), object.path()).toPath();
-		}
+	private File getIndexFile(String extension) {
+		final MinecraftProvider minecraftProvider = getExtension().getMinecraftProvider();
+		final String fabricId = getAssetIndexMeta().fabricId(minecraftProvider.minecraftVersion());
+		return new File(getAssetsDirectory().get().getAsFile(), "indexes" + File.separator + fabricId + extension);
+	}
+
+	private ContentAddressedStore getObjectStore() {
+		// The modern assets layout is already content addressed, so is used as the store directly.
+		return new ContentAddressedStore(new File(getAssetsDirectory().get().getAsFile(), "objects").toPath());
+	}
 
-		final String filename = "objects" + File.separator + object.hash().substring(0, 2) + File.separator + object.hash();
-		return new File(getAssetsDirectory().get().getAsFile(), filename).toPath();
+	private Path getLegacyAssetsPath(AssetIndex.Object object) {
+		return new File(getLegacyResourcesDirectory().get().getAsFile(), object.path()).toPath();
 	}
 }
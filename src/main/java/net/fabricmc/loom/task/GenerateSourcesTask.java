@@ -26,7 +26,6 @@ package net.fabricmc.loom.task;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.lang.reflect.Constructor;
@@ -35,21 +34,27 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.work.DisableCachingByDefault;
@@ -60,6 +65,7 @@ import org.gradle.workers.WorkerExecutor;
 import org.gradle.workers.internal.WorkerDaemonClientsManager;
 import org.jetbrains.annotations.Nullable;
 
+import net.fabricmc.loom.LoomGradlePlugin;
 import net.fabricmc.loom.api.decompilers.DecompilationMetadata;
 import net.fabricmc.loom.api.decompilers.DecompilerOptions;
 import net.fabricmc.loom.api.decompilers.LoomDecompiler;
@@ -67,24 +73,34 @@ import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.ConfigContextImpl;
 import net.fabricmc.loom.configuration.processors.MappingProcessorContextImpl;
 import net.fabricmc.loom.configuration.processors.MinecraftJarProcessorManager;
+import net.fabricmc.loom.decompilers.DecompileMappingsCache;
+import net.fabricmc.loom.decompilers.DecompiledSourcesCache;
+import net.fabricmc.loom.decompilers.IncrementalDecompilation;
+import net.fabricmc.loom.decompilers.JavadocIndex;
 import net.fabricmc.loom.decompilers.LineNumberRemapper;
+import net.fabricmc.loom.decompilers.ShardedDecompilation;
+import net.fabricmc.loom.util.BinaryMappingCache;
+import net.fabricmc.loom.util.Checksum;
 import net.fabricmc.loom.util.Constants;
-import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.IOStringConsumer;
 import net.fabricmc.loom.util.OperatingSystem;
+import net.fabricmc.loom.util.gradle.GradleUtils;
 import net.fabricmc.loom.util.gradle.ThreadedProgressLoggerConsumer;
 import net.fabricmc.loom.util.gradle.ThreadedSimpleProgressLogger;
+import net.fabricmc.loom.util.gradle.WarmWorkerPool;
 import net.fabricmc.loom.util.gradle.WorkerDaemonClientsManagerHelper;
 import net.fabricmc.loom.util.ipc.IPCClient;
 import net.fabricmc.loom.util.ipc.IPCServer;
 import net.fabricmc.loom.util.service.ScopedSharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch;
 import net.fabricmc.mappingio.format.Tiny2Writer;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 @DisableCachingByDefault
 public abstract class GenerateSourcesTask extends AbstractLoomTask {
+	private static final long MIN_SHARD_MEMORY = 1024;
+
 	private final DecompilerOptions decompilerOptions;
 
 	/**
@@ -105,6 +121,37 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 	@OutputFile
 	public abstract RegularFileProperty getOutputJar();
 
+	/**
+	 * When enabled only the classes that have changed since the last run are decompiled, and spliced into the existing sources jar.
+	 */
+	@Input
+	public abstract Property<Boolean> getIncremental();
+
+	/**
+	 * When enabled the decompiled sources are shared with other projects in the build that decompile the same jar with the same mappings and decompiler.
+	 * Disabled by default.
+	 */
+	@Input
+	public abstract Property<Boolean> getUseSharedCache();
+
+	/**
+	 * When enabled the decompiler JVM is kept alive once finished, so that later runs in the same Gradle daemon can reuse it.
+	 */
+	@Internal
+	public abstract Property<Boolean> getWarmWorkers();
+
+	/**
+	 * Minutes that an idle warm decompiler JVM is kept alive for.
+	 */
+	@Internal
+	public abstract Property<Integer> getWarmWorkerIdleTimeout();
+
+	/**
+	 * Memory in megabytes that the warm decompiler JVMs can use in total, the least recently used are stopped to stay within it.
+	 */
+	@Internal
+	public abstract Property<Long> getWarmWorkersMaxMemory();
+
 	@Inject
 	public abstract WorkerExecutor getWorkerExecutor();
 
@@ -116,6 +163,11 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		this.decompilerOptions = decompilerOptions;
 
 		getOutputs().upToDateWhen((o) -> false);
+		getIncremental().convention(true);
+		getUseSharedCache().convention(false);
+		getWarmWorkers().convention(GradleUtils.getBooleanPropertyProvider(getProject(), Constants.Properties.DECOMPILER_WARM_WORKERS).orElse(false));
+		getWarmWorkerIdleTimeout().convention(GradleUtils.getIntegerPropertyProvider(getProject(), Constants.Properties.DECOMPILER_WARM_WORKER_IDLE_TIMEOUT).orElse(10));
+		getWarmWorkersMaxMemory().convention(GradleUtils.getIntegerPropertyProvider(getProject(), Constants.Properties.DECOMPILER_WARM_WORKERS_MAX_MEMORY).map(Integer::longValue).orElse(8192L));
 		getClasspath().from(decompilerOptions.getClasspath()).finalizeValueOnRead();
 		dependsOn(decompilerOptions.getClasspath().getBuiltBy());
 
@@ -128,62 +180,218 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 			throw new UnsupportedOperationException("GenSources task requires a 64bit JVM to run due to the memory requirements.");
 		}
 
-		if (!OperatingSystem.isUnixDomainSocketsSupported()) {
-			getProject().getLogger().warn("Decompile worker logging disabled as Unix Domain Sockets is not supported on your operating system.");
+		final Path mappings = getMappings();
+		final Path inputJar = getInputJar().get().getAsFile().toPath();
+		final Path sourcesDestinationJar = getOutputJar().get().getAsFile().toPath();
+		final Path linemap = getMappedJarFileWithSuffix("-sources.lmap").toPath();
+		final Path decompileIndex = getMappedJarFileWithSuffix("-sources.index").toPath();
+
+		final boolean allowIncremental = getIncremental().get() && Files.exists(sourcesDestinationJar);
+		final List<String> incrementalKey = getIncrementalKey(mappings);
+		final IncrementalDecompilation incremental = IncrementalDecompilation.create(decompileIndex, inputJar, incrementalKey, allowIncremental);
+
+		// Only written back once the sources and runtime jar are complete
+		Files.deleteIfExists(decompileIndex);
+
+		if (getUseSharedCache().get()) {
+			final DecompiledSourcesCache cache = new DecompiledSourcesCache(getExtension().getFiles().getDecompiledSourcesCache().toPath());
+			// When restored, the index is still used to skip the classes of the runtime jar that have already been line mapped.
+			cache.restoreOrDecompile(getSharedCacheKey(incrementalKey, inputJar), sourcesDestinationJar, linemap, () -> decompile(incremental, mappings));
+		} else {
+			decompile(incremental, mappings);
+		}
 
-			doWork(null);
-			return;
+		lineMapRuntimeJar(incremental);
+	}
+
+	/**
+	 * Decompiles the input jar, or only the classes that changed since the last run, into the sources jar and line map.
+	 *
+	 * <p>The classes are split into shards that are each decompiled in their own JVM. The workers only decompile, the
+	 * sources and line maps are merged and spliced here.
+	 */
+	private void decompile(IncrementalDecompilation incremental, Path mappings) throws IOException {
+		// Written here so that the decompiler JVMs only need to memory map the javadoc, rather than load the whole mappings.
+		JavadocIndex.write(mappings);
+
+		final Path inputJar = getInputJar().get().getAsFile().toPath();
+		final Path sourcesDestinationJar = getOutputJar().get().getAsFile().toPath();
+		final Path linemap = getMappedJarFileWithSuffix("-sources.lmap").toPath();
+
+		if (!incremental.isIncremental() || incremental.hasChanges()) {
+			final Path workingDir = Files.createTempDirectory(sourcesDestinationJar.getParent(), "loom-decompile");
+
+			try {
+				final Set<String> groups = incremental.isIncremental() ? incremental.getChangedGroups() : null;
+				final List<ShardedDecompilation.Shard> shards = ShardedDecompilation.split(inputJar, groups, getShardCount(), workingDir);
+
+				Path sources = null;
+				Path shardsLinemap = null;
+
+				if (!shards.isEmpty()) {
+					decompileShards(shards, mappings);
+				}
+
+				if (shards.size() == 1) {
+					sources = shards.get(0).sourcesJar();
+					shardsLinemap = Files.exists(shards.get(0).lineMap()) ? shards.get(0).lineMap() : null;
+				} else if (shards.size() > 1) {
+					sources = workingDir.resolve("sources.jar");
+					ShardedDecompilation.mergeSources(shards, sources);
+
+					if (ShardedDecompilation.mergeLineMaps(shards, workingDir.resolve("sources.lmap"))) {
+						shardsLinemap = workingDir.resolve("sources.lmap");
+					}
+				}
+
+				if (incremental.isIncremental()) {
+					incremental.spliceSources(sourcesDestinationJar, sources);
+					incremental.mergeLineMaps(linemap, shardsLinemap);
+				} else {
+					Files.move(Objects.requireNonNull(sources, "No classes to decompile"), sourcesDestinationJar, StandardCopyOption.REPLACE_EXISTING);
+
+					if (shardsLinemap != null) {
+						Files.move(shardsLinemap, linemap, StandardCopyOption.REPLACE_EXISTING);
+					} else {
+						Files.deleteIfExists(linemap);
+					}
+				}
+			} finally {
+				Files.walkFileTree(workingDir, new DeletingFileVisitor());
+			}
 		}
+	}
 
-		// Set up the IPC path to get the log output back from the forked JVM
-		final Path ipcPath = Files.createTempFile("loom", "ipc");
-		Files.deleteIfExists(ipcPath);
+	/**
+	 * The number of shards to decompile with, limited so that every shard has at least {@link #MIN_SHARD_MEMORY} megabytes of memory.
+	 */
+	private int getShardCount() {
+		final long maxShards = Math.max(decompilerOptions.getTotalMemory().get() / MIN_SHARD_MEMORY, 1);
+		return (int) Math.min(decompilerOptions.getShards().get(), maxShards);
+	}
 
-		try (ThreadedProgressLoggerConsumer loggerConsumer = new ThreadedProgressLoggerConsumer(getProject(), decompilerOptions.getName(), "Decompiling minecraft sources");
-				IPCServer logReceiver = new IPCServer(ipcPath, loggerConsumer)) {
-			doWork(logReceiver);
-		} catch (InterruptedException e) {
-			throw new RuntimeException("Failed to shutdown log receiver", e);
-		} finally {
-			Files.deleteIfExists(ipcPath);
+	/**
+	 * Line maps the runtime jar, and then writes the index for the next incremental run.
+	 */
+	private void lineMapRuntimeJar(IncrementalDecompilation incremental) throws IOException {
+		final Path runtimeJar = getRuntimeJar().get().getAsFile().toPath();
+		final Path linemap = getMappedJarFileWithSuffix("-sources.lmap").toPath();
+		final Path linemapJar = getMappedJarFileWithSuffix("-linemapped.jar").toPath();
+
+		final Set<String> classes = incremental.getClassesToLineMap(runtimeJar);
+
+		// Nothing changed since the runtime jar was last line mapped, it is left untouched.
+		if (Files.exists(linemap) && (classes == null || !classes.isEmpty())) {
+			// Line map the actually jar used to run the game, not the one used to decompile
+			remapLineNumbers(getProject().getLogger()::debug, runtimeJar, linemap, linemapJar, classes);
+
+			Files.copy(linemapJar, runtimeJar, StandardCopyOption.REPLACE_EXISTING);
+			Files.delete(linemapJar);
 		}
+
+		incremental.writeIndex(runtimeJar);
 	}
 
-	private void doWork(@Nullable IPCServer ipcServer) {
-		final String jvmMarkerValue = UUID.randomUUID().toString();
-		final WorkQueue workQueue = createWorkQueue(jvmMarkerValue);
+	/**
+	 * Decompiles each shard in its own JVM, a single shard is decompiled with the memory and name of an unsharded decompile.
+	 */
+	private void decompileShards(List<ShardedDecompilation.Shard> shards, Path mappings) throws IOException {
+		final boolean logging = OperatingSystem.isUnixDomainSocketsSupported();
 
-		workQueue.submit(DecompileAction.class, params -> {
-			params.getDecompilerOptions().set(decompilerOptions.toDto());
+		if (!logging) {
+			getProject().getLogger().warn("Decompile worker logging disabled as Unix Domain Sockets is not supported on your operating system.");
+		}
 
-			params.getInputJar().set(getInputJar());
-			params.getRuntimeJar().set(getRuntimeJar());
-			params.getSourcesDestinationJar().set(getOutputJar());
-			params.getLinemap().set(getMappedJarFileWithSuffix("-sources.lmap"));
-			params.getLinemapJar().set(getMappedJarFileWithSuffix("-linemapped.jar"));
-			params.getMappings().set(getMappings().toFile());
+		final DecompilerOptions.Dto options = decompilerOptions.toDto();
+		final DecompilerOptions.Dto shardOptions = new DecompilerOptions.Dto(options.className(), options.options(), Math.max(options.maxThreads() / shards.size(), 1));
+		final boolean sharded = shards.size() > 1;
+		final long shardMemory = sharded ? decompilerOptions.getTotalMemory().get() / shards.size() : decompilerOptions.getMemory().get();
 
-			if (ipcServer != null) {
-				params.getIPCPath().set(ipcServer.getPath().toFile());
-			}
+		final List<String> jvmMarkerValues = new ArrayList<>();
+		final List<Boolean> warmJvmMarkerValues = new ArrayList<>();
+		final List<IPCServer> ipcServers = new ArrayList<>();
+		final List<Path> ipcPaths = new ArrayList<>();
 
-			params.getClassPath().setFrom(getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_DEPENDENCIES));
-		});
+		try (ThreadedProgressLoggerConsumer loggerConsumer = new ThreadedProgressLoggerConsumer(getProject(), decompilerOptions.getName(), "Decompiling minecraft sources")) {
+			try {
+				for (ShardedDecompilation.Shard shard : shards) {
+					IPCServer ipcServer = null;
 
-		try {
-			workQueue.await();
-		} finally {
-			if (ipcServer != null) {
-				boolean stopped = WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValue);
+					if (logging) {
+						// Set up the IPC path to get the log output back from the forked JVM, prefixing the thread ids with the shard.
+						final Path ipcPath = Files.createTempFile("loom", "ipc");
+						Files.deleteIfExists(ipcPath);
+						ipcPaths.add(ipcPath);
+
+						final String prefix = sharded ? shard.index() + "-" : "";
+						ipcServer = new IPCServer(ipcPath, line -> loggerConsumer.accept(prefix + line));
+						ipcServers.add(ipcServer);
+					}
+
+					// A marker per shard, so that each shard is decompiled in its own JVM
+					final String workerName = sharded ? decompilerOptions.getName() + "-shard-" + shard.index() : decompilerOptions.getName();
+					final String warmJvmMarkerValue = acquireWarmWorker(workerName, shardMemory);
+					final String jvmMarkerValue = warmJvmMarkerValue != null ? warmJvmMarkerValue : UUID.randomUUID().toString();
+					jvmMarkerValues.add(jvmMarkerValue);
+					warmJvmMarkerValues.add(warmJvmMarkerValue != null);
+
+					final IPCServer shardIpcServer = ipcServer;
+
+					createWorkQueue(jvmMarkerValue, shardMemory).submit(DecompileAction.class, params -> {
+						params.getDecompilerOptions().set(shardOptions);
+
+						params.getInputJar().set(shard.inputJar().toFile());
+
+						if (shard.libraryJar() != null) {
+							params.getLibraryJar().set(shard.libraryJar().toFile());
+						}
+
+						params.getSourcesDestinationJar().set(shard.sourcesJar().toFile());
+						params.getLinemap().set(shard.lineMap().toFile());
+						params.getMappings().set(mappings.toFile());
 
-				if (!stopped && ipcServer.hasReceivedMessage()) {
-					throw new RuntimeException("Failed to stop decompile worker JVM");
+						if (shardIpcServer != null) {
+							params.getIPCPath().set(shardIpcServer.getPath().toFile());
+						}
+
+						params.getClassPath().setFrom(getMinecraftDependencies());
+					});
 				}
+
+				try {
+					getWorkerExecutor().await();
+				} finally {
+					for (int i = 0; i < jvmMarkerValues.size(); i++) {
+						if (warmJvmMarkerValues.get(i)) {
+							WarmWorkerPool.getInstance().release(jvmMarkerValues.get(i), getWarmWorkerIdleDuration());
+							continue;
+						}
+
+						boolean stopped = WorkerDaemonClientsManagerHelper.stopIdleJVM(getWorkerDaemonClientsManager(), jvmMarkerValues.get(i));
+
+						if (!stopped && logging && ipcServers.get(i).hasReceivedMessage()) {
+							throw new RuntimeException("Failed to stop decompile worker JVM");
+						}
+					}
+				}
+			} finally {
+				// Closed before the logger consumer, so that the remaining progress messages can still be logged.
+				try {
+					for (IPCServer ipcServer : ipcServers) {
+						ipcServer.close();
+					}
+				} catch (InterruptedException e) {
+					throw new RuntimeException("Failed to shutdown log receiver", e);
+				}
+			}
+		} finally {
+			for (Path ipcPath : ipcPaths) {
+				Files.deleteIfExists(ipcPath);
 			}
 		}
 	}
 
-	private WorkQueue createWorkQueue(String jvmMarkerValue) {
+	private WorkQueue createWorkQueue(String jvmMarkerValue, long memory) {
 		if (!useProcessIsolation()) {
 			return getWorkerExecutor().classLoaderIsolation(spec -> {
 				spec.getClasspath().from(getClasspath());
@@ -192,13 +400,37 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 
 		return getWorkerExecutor().processIsolation(spec -> {
 			spec.forkOptions(forkOptions -> {
-				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", decompilerOptions.getMemory().get()));
+				forkOptions.setMaxHeapSize(String.format(Locale.ENGLISH, "%dm", memory));
 				forkOptions.systemProperty(WorkerDaemonClientsManagerHelper.MARKER_PROP, jvmMarkerValue);
 			});
 			spec.getClasspath().from(getClasspath());
 		});
 	}
 
+	/**
+	 * @return the marker of a warm worker to decompile in, or null when the worker should be stopped once finished
+	 */
+	@Nullable
+	private String acquireWarmWorker(String name, long memory) {
+		if (!getWarmWorkers().get() || !useProcessIsolation()) {
+			return null;
+		}
+
+		// Gradle only reuses a worker with the same fork options
+		final List<String> keyParts = new ArrayList<>();
+		keyParts.add(name);
+		keyParts.add(Long.toString(memory));
+		getClasspath().getFiles().stream().map(File::getAbsolutePath).sorted().forEach(keyParts::add);
+
+		final String key = Checksum.toHex(Checksum.sha256(String.join("\n", keyParts).getBytes(StandardCharsets.UTF_8)));
+		final WorkerDaemonClientsManager manager = getWorkerDaemonClientsManager();
+		return WarmWorkerPool.getInstance().acquire(key, memory, getWarmWorkersMaxMemory().get(), jvmMarkerValue -> WarmWorkerPool.stopIdleJVMs(manager, jvmMarkerValue));
+	}
+
+	private Duration getWarmWorkerIdleDuration() {
+		return Duration.ofMinutes(getWarmWorkerIdleTimeout().get());
+	}
+
 	private boolean useProcessIsolation() {
 		// Useful if you want to debug the decompiler, make sure you run gradle with enough memory.
 		return !Boolean.getBoolean("fabric.loom.genSources.debug");
@@ -208,10 +440,9 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		Property<DecompilerOptions.Dto> getDecompilerOptions();
 
 		RegularFileProperty getInputJar();
-		RegularFileProperty getRuntimeJar();
+		RegularFileProperty getLibraryJar();
 		RegularFileProperty getSourcesDestinationJar();
 		RegularFileProperty getLinemap();
-		RegularFileProperty getLinemapJar();
 		RegularFileProperty getMappings();
 
 		RegularFileProperty getIPCPath();
@@ -219,95 +450,117 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		ConfigurableFileCollection getClassPath();
 	}
 
+	/**
+	 * Decompiles a single shard. Everything else, such as merging the shards, incremental splicing and line mapping is done by the task.
+	 */
 	public abstract static class DecompileAction implements WorkAction<DecompileParams> {
 		@Override
 		public void execute() {
-			if (!getParameters().getIPCPath().isPresent() || !OperatingSystem.isUnixDomainSocketsSupported()) {
-				// Does not support unix domain sockets, print to sout.
-				doDecompile(System.out::println);
-				return;
-			}
-
-			final Path ipcPath = getParameters().getIPCPath().get().getAsFile().toPath();
-
-			try (IPCClient ipcClient = new IPCClient(ipcPath)) {
-				doDecompile(new ThreadedSimpleProgressLogger(ipcClient));
-			} catch (Exception e) {
-				throw new RuntimeException("Failed to decompile", e);
-			}
+			runWithLogger(getParameters().getIPCPath(), this::doDecompile);
 		}
 
 		private void doDecompile(IOStringConsumer logger) {
-			final Path inputJar = getParameters().getInputJar().get().getAsFile().toPath();
-			final Path sourcesDestinationJar = getParameters().getSourcesDestinationJar().get().getAsFile().toPath();
-			final Path linemap = getParameters().getLinemap().get().getAsFile().toPath();
-			final Path linemapJar = getParameters().getLinemapJar().get().getAsFile().toPath();
-			final Path runtimeJar = getParameters().getRuntimeJar().get().getAsFile().toPath();
-
 			final DecompilerOptions.Dto decompilerOptions = getParameters().getDecompilerOptions().get();
+			final LoomDecompiler decompiler = createDecompiler(decompilerOptions.className());
 
-			final LoomDecompiler decompiler;
-
-			try {
-				final String className = decompilerOptions.className();
-				final Constructor<LoomDecompiler> decompilerConstructor = getDecompilerConstructor(className);
-				Objects.requireNonNull(decompilerConstructor, "%s must have a no args constructor".formatted(className));
+			final List<Path> libraries = getParameters().getClassPath().getFiles().stream().map(File::toPath).collect(Collectors.toCollection(ArrayList::new));
 
-				decompiler = decompilerConstructor.newInstance();
-			} catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-				throw new RuntimeException("Failed to create decompiler", e);
+			if (getParameters().getLibraryJar().isPresent()) {
+				libraries.add(getParameters().getLibraryJar().get().getAsFile().toPath());
 			}
 
-			DecompilationMetadata metadata = new DecompilationMetadata(
-					decompilerOptions.maxThreads(),
-					getParameters().getMappings().get().getAsFile().toPath(),
-					getLibraries(),
-					logger,
-					decompilerOptions.options()
-			);
-
 			decompiler.decompile(
-					inputJar,
-					sourcesDestinationJar,
-					linemap,
-					metadata
+					getParameters().getInputJar().get().getAsFile().toPath(),
+					getParameters().getSourcesDestinationJar().get().getAsFile().toPath(),
+					getParameters().getLinemap().get().getAsFile().toPath(),
+					new DecompilationMetadata(
+							decompilerOptions.maxThreads(),
+							getParameters().getMappings().get().getAsFile().toPath(),
+							libraries,
+							logger,
+							decompilerOptions.options()
+					)
 			);
 
 			// Close the decompile loggers
 			try {
-				metadata.logger().accept(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS);
+				logger.accept(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS);
 			} catch (IOException e) {
 				throw new UncheckedIOException("Failed to close loggers", e);
 			}
+		}
+	}
 
-			if (Files.exists(linemap)) {
-				try {
-					// Line map the actually jar used to run the game, not the one used to decompile
-					remapLineNumbers(metadata.logger(), runtimeJar, linemap, linemapJar);
-
-					Files.copy(linemapJar, runtimeJar, StandardCopyOption.REPLACE_EXISTING);
-					Files.delete(linemapJar);
-				} catch (IOException e) {
-					throw new UncheckedIOException("Failed to remap line numbers", e);
-				}
-			}
+	private static void runWithLogger(RegularFileProperty ipcPathProperty, Consumer<IOStringConsumer> action) {
+		if (!ipcPathProperty.isPresent() || !OperatingSystem.isUnixDomainSocketsSupported()) {
+			// Does not support unix domain sockets, print to sout.
+			action.accept(System.out::println);
+			return;
 		}
 
-		private void remapLineNumbers(IOStringConsumer logger, Path oldCompiledJar, Path linemap, Path linemappedJarDestination) throws IOException {
-			LineNumberRemapper remapper = new LineNumberRemapper();
-			remapper.readMappings(linemap.toFile());
+		final Path ipcPath = ipcPathProperty.get().getAsFile().toPath();
 
-			try (FileSystemUtil.Delegate inFs = FileSystemUtil.getJarFileSystem(oldCompiledJar.toFile(), true);
-					FileSystemUtil.Delegate outFs = FileSystemUtil.getJarFileSystem(linemappedJarDestination.toFile(), true)) {
-				remapper.process(logger, inFs.get().getPath("/"), outFs.get().getPath("/"));
-			}
+		try (IPCClient ipcClient = new IPCClient(ipcPath)) {
+			action.accept(new ThreadedSimpleProgressLogger(ipcClient));
+		} catch (Exception e) {
+			throw new RuntimeException("Failed to decompile", e);
 		}
+	}
+
+	private static LoomDecompiler createDecompiler(String className) {
+		try {
+			final Constructor<LoomDecompiler> decompilerConstructor = getDecompilerConstructor(className);
+			Objects.requireNonNull(decompilerConstructor, "%s must have a no args constructor".formatted(className));
 
-		private Collection<Path> getLibraries() {
-			return getParameters().getClassPath().getFiles().stream().map(File::toPath).collect(Collectors.toSet());
+			return decompilerConstructor.newInstance();
+		} catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+			throw new RuntimeException("Failed to create decompiler", e);
 		}
 	}
 
+	private static void remapLineNumbers(IOStringConsumer logger, Path oldCompiledJar, Path linemap, Path linemappedJarDestination, @Nullable Set<String> classes) throws IOException {
+		LineNumberRemapper remapper = new LineNumberRemapper();
+		remapper.readMappings(linemap.toFile());
+
+		Files.deleteIfExists(linemappedJarDestination);
+		remapper.processJar(logger, oldCompiledJar, linemappedJarDestination, classes != null ? classes::contains : className -> true);
+	}
+
+	/**
+	 * Everything other than the input classes that affects the decompiled sources, a change to any of these requires every class to be decompiled.
+	 */
+	private List<String> getIncrementalKey(Path mappings) {
+		final DecompilerOptions.Dto options = decompilerOptions.toDto();
+		final List<String> key = new ArrayList<>();
+		key.add(LoomGradlePlugin.LOOM_VERSION);
+		key.add(options.className());
+		key.add(new TreeMap<>(options.options()).toString());
+		key.add(Checksum.toHex(Checksum.sha256(mappings.toFile())));
+
+		// The decompiler's own classpath, followed by the libraries
+		getClasspath().getFiles().stream().sorted().map(GenerateSourcesTask::describeFile).forEach(key::add);
+		getMinecraftDependencies().getFiles().stream().sorted().map(GenerateSourcesTask::describeFile).forEach(key::add);
+
+		return key;
+	}
+
+	/**
+	 * The key of the decompiled sources in the shared cache, the incremental key along with the contents of the input jar.
+	 */
+	private static String getSharedCacheKey(List<String> incrementalKey, Path inputJar) {
+		final List<String> key = new ArrayList<>(incrementalKey);
+		key.add(Checksum.toHex(Checksum.sha256(inputJar.toFile())));
+		return DecompiledSourcesCache.getKey(key);
+	}
+
+	private FileCollection getMinecraftDependencies() {
+		return getProject().getConfigurations().getByName(Constants.Configurations.MINECRAFT_DEPENDENCIES);
+	}
+
+	private static String describeFile(File file) {
+		return file.getAbsolutePath() + "\t" + file.length() + "\t" + file.lastModified();
+	}
+
 	private File getMappedJarFileWithSuffix(String suffix) {
 		String path = getRuntimeJar().get().getAsFile().getAbsolutePath();
 
@@ -318,62 +571,69 @@ public abstract class GenerateSourcesTask extends AbstractLoomTask {
 		return new File(path.substring(0, path.length() - 4) + suffix);
 	}
 
+	/**
+	 * The mappings to decompile with, after the jar processors have processed them.
+	 *
+	 * <p>Processed mappings are cached by the digest of the input mappings and the jar processors cache value, so that
+	 * repeated runs skip processing and the decompiler sees the same file each time.
+	 */
 	private Path getMappings() {
 		Path inputMappings = getExtension().getMappingConfiguration().tinyMappings;
 
-		MemoryMappingTree mappingTree = new MemoryMappingTree();
+		MinecraftJarProcessorManager minecraftJarProcessorManager = MinecraftJarProcessorManager.create(getProject());
 
-		try (Reader reader = Files.newBufferedReader(inputMappings, StandardCharsets.UTF_8)) {
-			MappingReader.read(reader, new MappingSourceNsSwitch(mappingTree, MappingsNamespace.INTERMEDIARY.toString()));
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to read mappings", e);
+		if (minecraftJarProcessorManager == null) {
+			return inputMappings;
 		}
 
-		final List<MappingsProcessor> mappingsProcessors = new ArrayList<>();
+		final DecompileMappingsCache cache = new DecompileMappingsCache(getExtension().getFiles().getDecompileMappingsCache().toPath());
+		final String cacheKey = Checksum.toHex(Checksum.sha256(String.join("\n",
+				LoomGradlePlugin.LOOM_VERSION,
+				Checksum.toHex(Checksum.sha256(inputMappings.toFile())),
+				minecraftJarProcessorManager.getCacheValue()
+		).getBytes(StandardCharsets.UTF_8)));
 
-		MinecraftJarProcessorManager minecraftJarProcessorManager = MinecraftJarProcessorManager.create(getProject());
+		try {
+			return cache.get(cacheKey, inputMappings, outputMappings -> {
+				MemoryMappingTree mappingTree = new MemoryMappingTree();
 
-		if (minecraftJarProcessorManager != null) {
-			mappingsProcessors.add(mappings -> {
-				try (var serviceManager = new ScopedSharedServiceManager()) {
-					final var configContext = new ConfigContextImpl(getProject(), serviceManager, getExtension());
-					return minecraftJarProcessorManager.processMappings(mappings, new MappingProcessorContextImpl(configContext));
+				try {
+					BinaryMappingCache.read(inputMappings, new MappingSourceNsSwitch(mappingTree, MappingsNamespace.INTERMEDIARY.toString()));
+				} catch (IOException e) {
+					throw new RuntimeException("Failed to read mappings", e);
 				}
-			});
-		}
 
-		if (mappingsProcessors.isEmpty()) {
-			return inputMappings;
-		}
+				final List<MappingsProcessor> mappingsProcessors = new ArrayList<>();
 
-		boolean transformed = false;
+				mappingsProcessors.add(mappings -> {
+					try (var serviceManager = new ScopedSharedServiceManager()) {
+						final var configContext = new ConfigContextImpl(getProject(), serviceManager, getExtension());
+						return minecraftJarProcessorManager.processMappings(mappings, new MappingProcessorContextImpl(configContext));
+					}
+				});
 
-		for (MappingsProcessor mappingsProcessor : mappingsProcessors) {
-			if (mappingsProcessor.transform(mappingTree)) {
-				transformed = true;
-			}
-		}
+				boolean transformed = false;
 
-		if (!transformed) {
-			return inputMappings;
-		}
+				for (MappingsProcessor mappingsProcessor : mappingsProcessors) {
+					if (mappingsProcessor.transform(mappingTree)) {
+						transformed = true;
+					}
+				}
 
-		final Path outputMappings;
+				if (!transformed) {
+					return false;
+				}
 
-		try {
-			outputMappings = Files.createTempFile("loom-transitive-mappings", ".tiny");
-		} catch (IOException e) {
-			throw new RuntimeException("Failed to create temp file", e);
-		}
+				try (Writer writer = Files.newBufferedWriter(outputMappings, StandardCharsets.UTF_8)) {
+					Tiny2Writer tiny2Writer = new Tiny2Writer(writer, false);
+					mappingTree.accept(new MappingSourceNsSwitch(tiny2Writer, MappingsNamespace.NAMED.toString()));
+				}
 
-		try (Writer writer = Files.newBufferedWriter(outputMappings, StandardCharsets.UTF_8)) {
-			Tiny2Writer tiny2Writer = new Tiny2Writer(writer, false);
-			mappingTree.accept(new MappingSourceNsSwitch(tiny2Writer, MappingsNamespace.NAMED.toString()));
+				return true;
+			});
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to write mappings", e);
 		}
-
-		return outputMappings;
 	}
 
 	public interface MappingsProcessor {
@@ -33,8 +33,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.inject.Inject;
 
@@ -66,14 +64,13 @@ import net.fabricmc.loom.extension.MixinExtension;
 import net.fabricmc.loom.task.service.TinyRemapperService;
 import net.fabricmc.loom.util.Constants;
 import net.fabricmc.loom.util.ExceptionUtil;
-import net.fabricmc.loom.util.Pair;
+import net.fabricmc.loom.util.JarAssembler;
 import net.fabricmc.loom.util.SidedClassVisitor;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.fmj.FabricModJson;
 import net.fabricmc.loom.util.fmj.FabricModJsonFactory;
 import net.fabricmc.loom.util.service.BuildSharedServiceManager;
 import net.fabricmc.loom.util.service.UnsafeWorkQueueHelper;
-import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
 public abstract class RemapJarTask extends AbstractRemapJarTask {
@@ -209,17 +206,20 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 
 				tinyRemapper = tinyRemapperService.getTinyRemapperForRemapping();
 
-				remap();
+				// Every step transforms the jar in memory, so that it only needs to be compressed and written once.
+				final JarAssembler jar = new JarAssembler();
+
+				remap(jar);
 
 				if (getParameters().getClientOnlyEntries().isPresent()) {
-					markClientOnlyClasses();
+					markClientOnlyClasses(jar);
 				}
 
-				remapAccessWidener();
-				addRefmaps();
-				addNestedJars();
-				modifyJarManifest();
-				rewriteJar();
+				remapAccessWidener(jar);
+				addRefmaps(jar);
+				addNestedJars(jar);
+				modifyJarManifest(jar);
+				writeJar(jar);
 
 				if (!getParameters().getMultiProjectOptimisation().get()) {
 					tinyRemapperService.close();
@@ -242,23 +242,20 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			PrepareJarRemapTask.prepare(tinyRemapperService, inputFile);
 		}
 
-		private void remap() throws IOException {
-			try (OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(outputFile).build()) {
-				outputConsumer.addNonClassFiles(inputFile);
-				tinyRemapper.apply(outputConsumer, tinyRemapperService.getOrCreateTag(inputFile));
-			}
+		private void remap(JarAssembler jar) throws IOException {
+			jar.addNonClassFiles(inputFile);
+			tinyRemapper.apply(jar::accept, tinyRemapperService.getOrCreateTag(inputFile));
 		}
 
-		private void markClientOnlyClasses() throws IOException {
-			final Stream<Pair<String, ZipUtils.UnsafeUnaryOperator<byte[]>>> tranformers = getParameters().getClientOnlyEntries().get().stream()
-					.map(s -> new Pair<>(s,
-							(ZipUtils.AsmClassOperator) classVisitor -> SidedClassVisitor.CLIENT.insertApplyVisitor(null, classVisitor)
-					));
+		private void markClientOnlyClasses(JarAssembler jar) throws IOException {
+			final ZipUtils.AsmClassOperator transformer = classVisitor -> SidedClassVisitor.CLIENT.insertApplyVisitor(null, classVisitor);
 
-			ZipUtils.transform(outputFile, tranformers);
+			for (String clientOnlyEntry : getParameters().getClientOnlyEntries().get()) {
+				jar.transform(clientOnlyEntry, transformer);
+			}
 		}
 
-		private void remapAccessWidener() throws IOException {
+		private void remapAccessWidener(JarAssembler jar) throws IOException {
 			final AccessWidenerFile accessWidenerFile = AccessWidenerFile.fromModJar(inputFile);
 
 			if (accessWidenerFile == null) {
@@ -268,7 +265,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			byte[] remapped = remapAccessWidener(accessWidenerFile.content());
 
 			// Finally, replace the output with the remaped aw
-			ZipUtils.replace(outputFile, accessWidenerFile.path(), remapped);
+			jar.replace(accessWidenerFile.path(), remapped);
 		}
 
 		private byte[] remapAccessWidener(byte[] input) {
@@ -287,7 +284,7 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 			return writer.write();
 		}
 
-		private void addNestedJars() {
+		private void addNestedJars(JarAssembler jar) {
 			FileCollection nestedJars = getParameters().getNestedJars();
 
 			if (nestedJars.isEmpty()) {
@@ -295,22 +292,24 @@ public abstract class RemapJarTask extends AbstractRemapJarTask {
 				return;
 			}
 
-			JarNester.nestJars(nestedJars.getFiles(), outputFile.toFile(), LOGGER);
+			JarNester.nestJars(nestedJars.getFiles(), jar, outputFile.getFileName().toString(), LOGGER);
 		}
 
-		private void addRefmaps() throws IOException {
+		private void addRefmaps(JarAssembler jar) throws IOException {
 			if (getParameters().getUseMixinExtension().get()) {
 				return;
 			}
 
 			for (RemapParams.RefmapData refmapData : getParameters().getMixinData().get()) {
-				int transformed = ZipUtils.transformJson(JsonObject.class, outputFile, refmapData.mixinConfigs().stream().collect(Collectors.toMap(s -> s, s -> json -> {
-					if (!json.has("refmap")) {
-						json.addProperty("refmap", refmapData.refmapName());
-					}
-
-					return json;
-				})));
+				for (String mixinConfig : refmapData.mixinConfigs()) {
+					jar.transformJson(JsonObject.class, mixinConfig, json -> {
+						if (!json.has("refmap")) {
+							json.addProperty("refmap", refmapData.refmapName());
+						}
+
+						return json;
+					});
+				}
 			}
 		}
 	}
@@ -29,6 +29,9 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Supplier;
 
 import com.google.common.base.Suppliers;
@@ -44,6 +47,7 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.task.RemapSourcesJarTask;
 import net.fabricmc.loom.util.DeletingFileVisitor;
 import net.fabricmc.loom.util.FileSystemUtil;
+import net.fabricmc.loom.util.MercuryPool;
 import net.fabricmc.loom.util.SourceRemapper;
 import net.fabricmc.loom.util.ZipUtils;
 import net.fabricmc.loom.util.service.SharedService;
@@ -69,7 +73,8 @@ public final class SourceRemapperService implements SharedService {
 	private final ConfigurableFileCollection classpath;
 	private final int javaCompileRelease;
 
-	private final Supplier<Mercury> mercury = Suppliers.memoize(this::createMercury);
+	private final Supplier<List<Path>> classpathFiles = Suppliers.memoize(this::resolveClasspath);
+	private final MercuryPool mercuryPool = new MercuryPool(this::createMercury, MercuryPool.getDefaultParallelism());
 
 	private SourceRemapperService(MappingsService mappingsService, ConfigurableFileCollection classpath, int javaCompileRelease) {
 		this.mappingsService = mappingsService;
@@ -108,9 +113,9 @@ public final class SourceRemapperService implements SharedService {
 		}
 	}
 
-	private synchronized void doRemap(Path srcPath, Path dstPath, Path source) {
+	private void doRemap(Path srcPath, Path dstPath, Path source) {
 		try {
-			mercury.get().rewrite(srcPath, dstPath);
+			mercuryPool.rewrite(srcPath, dstPath);
 		} catch (Exception e) {
 			LOGGER.warn("Could not remap " + source + " fully!", e);
 		}
@@ -125,18 +130,26 @@ public final class SourceRemapperService implements SharedService {
 		mercury.setGracefulClasspathChecks(true);
 		mercury.setSourceCompatibilityFromRelease(javaCompileRelease);
 
+		// Each instance gets its own mapping set, as mercury completes the class mappings while remapping.
 		try {
 			mercury.getProcessors().add(MercuryRemapper.create(getMappings()));
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to read mercury mappings", e);
 		}
 
+		mercury.getClassPath().addAll(classpathFiles.get());
+		return mercury;
+	}
+
+	private List<Path> resolveClasspath() {
+		final List<Path> files = new ArrayList<>();
+
 		for (File file : classpath.getFiles()) {
 			if (file.exists()) {
-				mercury.getClassPath().add(file.toPath());
+				files.add(file.toPath());
 			}
 		}
 
-		return mercury;
+		return Collections.unmodifiableList(files);
 	}
 }
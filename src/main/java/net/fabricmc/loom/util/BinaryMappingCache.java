@@ -0,0 +1,468 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.fabricmc.mappingio.MappedElementKind;
+import net.fabricmc.mappingio.MappingReader;
+import net.fabricmc.mappingio.MappingVisitor;
+import net.fabricmc.mappingio.tree.MappingTree;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
+
+/**
+ * A compact binary copy of a mappings file, written once next to the source file and read back with a memory mapped buffer.
+ *
+ * <p>All strings are stored once in a table at the start of the file and referenced by index, the destination names of each
+ * element are stored as a column per namespace. Reading the cache replays the mappings into a {@link MappingVisitor},
+ * skipping the text parsing and unescaping of the source file. Strings are interned while reading, so trees loaded from the
+ * same (or overlapping) mappings share their names and descriptors.
+ *
+ * <p>The cache is keyed on the size and last modified time of the source file, and is rewritten when either changes.
+ */
+public final class BinaryMappingCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BinaryMappingCache.class);
+	private static final int MAGIC = 0x4C4D4331; // LMC1
+	private static final int VERSION = 1;
+	private static final String EXTENSION = ".bin";
+
+	private BinaryMappingCache() {
+	}
+
+	public static MemoryMappingTree read(Path mappings) throws IOException {
+		final MemoryMappingTree mappingTree = new MemoryMappingTree();
+		read(mappings, mappingTree);
+		return mappingTree;
+	}
+
+	/**
+	 * Reads the given mappings file into the visitor, using (and if required creating) the binary cache next to it.
+	 */
+	public static void read(Path mappings, MappingVisitor visitor) throws IOException {
+		if (!Files.isRegularFile(mappings)) {
+			// Directories (such as enigma mappings) are not cached.
+			MappingReader.read(mappings, visitor);
+			return;
+		}
+
+		final Path cache = getCachePath(mappings);
+		final BasicFileAttributes attributes = Files.readAttributes(mappings, BasicFileAttributes.class);
+
+		final long size = attributes.size();
+		final long lastModified = attributes.lastModifiedTime().toMillis();
+
+		if (Files.exists(cache) && tryRead(cache, size, lastModified, visitor)) {
+			return;
+		}
+
+		final MemoryMappingTree mappingTree = new MemoryMappingTree();
+		MappingReader.read(mappings, mappingTree);
+
+		try {
+			write(mappingTree, cache, size, lastModified);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to write mapping cache ({})", cache, e);
+		}
+
+		mappingTree.accept(visitor);
+	}
+
+	@VisibleForTesting
+	public static Path getCachePath(Path mappings) {
+		return mappings.resolveSibling(mappings.getFileName() + EXTENSION);
+	}
+
+	/**
+	 * Writes a standalone snapshot of the given tree, that is not tied to a source file.
+	 */
+	public static void writeSnapshot(MappingTree mappingTree, Path snapshot) throws IOException {
+		Files.createDirectories(snapshot.getParent());
+		write(mappingTree, snapshot, -1, -1);
+	}
+
+	/**
+	 * Reads a snapshot written by {@link #writeSnapshot(MappingTree, Path)} into the visitor.
+	 *
+	 * @return false when the snapshot does not exist or is not in the current format, in which case nothing is visited
+	 */
+	public static boolean readSnapshot(Path snapshot, MappingVisitor visitor) throws IOException {
+		return Files.exists(snapshot) && tryRead(snapshot, -1, -1, visitor);
+	}
+
+	private static boolean tryRead(Path cache, long size, long lastModified, MappingVisitor visitor) throws IOException {
+		try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.remaining() < 24
+					|| buffer.getInt() != MAGIC
+					|| buffer.getInt() != VERSION
+					|| buffer.getLong() != size
+					|| buffer.getLong() != lastModified) {
+				return false;
+			}
+
+			new Reader(buffer).accept(visitor);
+			return true;
+		}
+	}
+
+	private static void write(MappingTree mappingTree, Path cache, long size, long lastModified) throws IOException {
+		final Writer writer = new Writer(mappingTree.getDstNamespaces().size());
+		writer.writeTree(mappingTree);
+
+		final Path temp = Files.createTempFile(cache.getParent(), cache.getFileName().toString(), ".tmp");
+
+		try {
+			try (OutputStream os = Files.newOutputStream(temp)) {
+				final ByteBuffer header = ByteBuffer.allocate(24);
+				header.putInt(MAGIC);
+				header.putInt(VERSION);
+				header.putLong(size);
+				header.putLong(lastModified);
+				os.write(header.array());
+				writer.writeTo(os);
+			}
+
+			Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static final class Writer {
+		private final int dstNamespaces;
+		private final Map<String, Integer> stringIds = new HashMap<>();
+		private final List<String> strings = new ArrayList<>();
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 20);
+
+		Writer(int dstNamespaces) {
+			this.dstNamespaces = dstNamespaces;
+		}
+
+		void writeTree(MappingTree tree) {
+			writeString(tree.getSrcNamespace());
+			writeVarInt(dstNamespaces);
+
+			for (String namespace : tree.getDstNamespaces()) {
+				writeString(namespace);
+			}
+
+			writeVarInt(tree.getMetadata().size());
+
+			for (MappingTree.MetadataEntry entry : tree.getMetadata()) {
+				writeString(entry.getKey());
+				writeString(entry.getValue());
+			}
+
+			writeVarInt(tree.getClasses().size());
+
+			for (MappingTree.ClassMapping classMapping : tree.getClasses()) {
+				writeElement(classMapping);
+
+				writeVarInt(classMapping.getFields().size());
+
+				for (MappingTree.FieldMapping field : classMapping.getFields()) {
+					writeString(field.getSrcDesc());
+					writeElement(field);
+				}
+
+				writeVarInt(classMapping.getMethods().size());
+
+				for (MappingTree.MethodMapping method : classMapping.getMethods()) {
+					writeString(method.getSrcDesc());
+					writeElement(method);
+
+					writeVarInt(method.getArgs().size());
+
+					for (MappingTree.MethodArgMapping arg : method.getArgs()) {
+						writeVarInt(arg.getArgPosition() + 1);
+						writeVarInt(arg.getLvIndex() + 1);
+						writeElement(arg);
+					}
+
+					writeVarInt(method.getVars().size());
+
+					for (MappingTree.MethodVarMapping var : method.getVars()) {
+						writeVarInt(var.getLvtRowIndex() + 1);
+						writeVarInt(var.getLvIndex() + 1);
+						writeVarInt(var.getStartOpIdx() + 1);
+						writeElement(var);
+					}
+				}
+			}
+		}
+
+		private void writeElement(MappingTree.ElementMapping element) {
+			writeString(element.getSrcName());
+
+			for (int i = 0; i < dstNamespaces; i++) {
+				writeString(element.getDstName(i));
+			}
+
+			writeString(element.getComment());
+		}
+
+		private void writeString(@Nullable String value) {
+			if (value == null) {
+				writeVarInt(0);
+				return;
+			}
+
+			Integer id = stringIds.get(value);
+
+			if (id == null) {
+				id = strings.size();
+				stringIds.put(value, id);
+				strings.add(value);
+			}
+
+			writeVarInt(id + 1);
+		}
+
+		private void writeVarInt(int value) {
+			writeVarInt(body, value);
+		}
+
+		void writeTo(OutputStream os) throws IOException {
+			final ByteArrayOutputStream table = new ByteArrayOutputStream(strings.size() * 16);
+			writeVarInt(table, strings.size());
+
+			for (String string : strings) {
+				final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				writeVarInt(table, bytes.length);
+				table.write(bytes);
+			}
+
+			table.writeTo(os);
+			body.writeTo(os);
+		}
+
+		private static void writeVarInt(ByteArrayOutputStream os, int value) {
+			while ((value & ~0x7F) != 0) {
+				os.write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+
+			os.write(value);
+		}
+	}
+
+	private static final class Reader {
+		private final ByteBuffer buffer;
+		private final String[] strings;
+		private final int bodyStart;
+
+		Reader(ByteBuffer buffer) {
+			this.buffer = buffer;
+			this.strings = new String[readVarInt()];
+
+			byte[] bytes = new byte[256];
+
+			for (int i = 0; i < strings.length; i++) {
+				final int length = readVarInt();
+
+				if (length > bytes.length) {
+					bytes = new byte[Math.max(length, bytes.length * 2)];
+				}
+
+				buffer.get(bytes, 0, length);
+				strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8).intern();
+			}
+
+			this.bodyStart = buffer.position();
+		}
+
+		void accept(MappingVisitor visitor) throws IOException {
+			while (true) {
+				buffer.position(bodyStart);
+
+				final String srcNamespace = readString();
+				final List<String> dstNamespaces = new ArrayList<>();
+				final int dstNamespaceCount = readVarInt();
+
+				for (int i = 0; i < dstNamespaceCount; i++) {
+					dstNamespaces.add(readString());
+				}
+
+				if (visitor.visitHeader()) {
+					visitor.visitNamespaces(srcNamespace, dstNamespaces);
+					final int metadataCount = readVarInt();
+
+					for (int i = 0; i < metadataCount; i++) {
+						visitor.visitMetadata(readString(), readString());
+					}
+				} else {
+					final int metadataCount = readVarInt();
+
+					for (int i = 0; i < metadataCount; i++) {
+						readString();
+						readString();
+					}
+				}
+
+				if (visitor.visitContent()) {
+					final int classCount = readVarInt();
+
+					for (int i = 0; i < classCount; i++) {
+						readClass(visitor, dstNamespaceCount);
+					}
+				}
+
+				if (visitor.visitEnd()) {
+					break;
+				}
+			}
+		}
+
+		private void readClass(MappingVisitor visitor, int dstNamespaces) throws IOException {
+			final String srcName = readString();
+			final boolean visit = visitor.visitClass(srcName) && readElement(visitor, MappedElementKind.CLASS, dstNamespaces);
+
+			if (!visit) {
+				skipElement(dstNamespaces);
+			}
+
+			final int fieldCount = readVarInt();
+
+			for (int i = 0; i < fieldCount; i++) {
+				final String srcDesc = readString();
+				final String fieldName = readString();
+
+				if (!(visit && visitor.visitField(fieldName, srcDesc) && readElement(visitor, MappedElementKind.FIELD, dstNamespaces))) {
+					skipElement(dstNamespaces);
+				}
+			}
+
+			final int methodCount = readVarInt();
+
+			for (int i = 0; i < methodCount; i++) {
+				final String srcDesc = readString();
+				final String methodName = readString();
+				final boolean visitMethod = visit && visitor.visitMethod(methodName, srcDesc) && readElement(visitor, MappedElementKind.METHOD, dstNamespaces);
+
+				if (!visitMethod) {
+					skipElement(dstNamespaces);
+				}
+
+				final int argCount = readVarInt();
+
+				for (int j = 0; j < argCount; j++) {
+					final int argPosition = readVarInt() - 1;
+					final int lvIndex = readVarInt() - 1;
+					final String argName = readString();
+
+					if (!(visitMethod && visitor.visitMethodArg(argPosition, lvIndex, argName) && readElement(visitor, MappedElementKind.METHOD_ARG, dstNamespaces))) {
+						skipElement(dstNamespaces);
+					}
+				}
+
+				final int varCount = readVarInt();
+
+				for (int j = 0; j < varCount; j++) {
+					final int lvtRowIndex = readVarInt() - 1;
+					final int lvIndex = readVarInt() - 1;
+					final int startOpIdx = readVarInt() - 1;
+					final String varName = readString();
+
+					if (!(visitMethod && visitor.visitMethodVar(lvtRowIndex, lvIndex, startOpIdx, varName) && readElement(visitor, MappedElementKind.METHOD_VAR, dstNamespaces))) {
+						skipElement(dstNamespaces);
+					}
+				}
+			}
+		}
+
+		// Rewinds to the start of the element when the visitor skips its content, so that the caller can skip it.
+		private boolean readElement(MappingVisitor visitor, MappedElementKind kind, int dstNamespaces) throws IOException {
+			final int start = buffer.position();
+
+			for (int i = 0; i < dstNamespaces; i++) {
+				final String dstName = readString();
+
+				if (dstName != null) {
+					visitor.visitDstName(kind, i, dstName);
+				}
+			}
+
+			if (!visitor.visitElementContent(kind)) {
+				buffer.position(start);
+				return false;
+			}
+
+			final String comment = readString();
+
+			if (comment != null) {
+				visitor.visitComment(kind, comment);
+			}
+
+			return true;
+		}
+
+		private void skipElement(int dstNamespaces) {
+			for (int i = 0; i < dstNamespaces + 1; i++) {
+				readVarInt();
+			}
+		}
+
+		@Nullable
+		private String readString() {
+			final int id = readVarInt();
+			return id == 0 ? null : strings[id - 1];
+		}
+
+		private int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+
+			do {
+				b = buffer.get();
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+
+			return value;
+		}
+	}
+}
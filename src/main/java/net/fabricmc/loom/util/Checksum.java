@@ -66,6 +66,10 @@ public class Checksum {
 		}
 	}
 
+	public static byte[] sha256(byte[] bytes) {
+		return Hashing.sha256().hashBytes(bytes).asBytes();
+	}
+
 	public static String sha1Hex(Path path) throws IOException {
 		HashCode hash = Files.asByteSource(path.toFile()).hash(Hashing.sha1());
 		return toHex(hash.asBytes());
@@ -0,0 +1,273 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a zip file from many threads at once.
+ *
+ * <p>Entries are compressed on the thread that adds them, only appending the already compressed data to the file is
+ * serialised. Every entry is given the same timestamp. Zip64 records are written once the zip has more than 65535 entries
+ * or is larger than 4GB, a single entry is limited to 2GB.
+ */
+public final class ConcurrentZipWriter implements Closeable {
+	private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final short ZIP64_EXTRA_ID = 0x0001;
+	private static final int LOCAL_FILE_HEADER_SIZE = 30;
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+	// The extra field of a central directory record that holds a zip64 local header offset
+	private static final int ZIP64_OFFSET_EXTRA_SIZE = 12;
+
+	private static final int FLAG_UTF8 = 1 << 11;
+	private static final int VERSION_STORED = 10;
+	private static final int VERSION_DEFLATE = 20;
+	private static final int VERSION_ZIP64 = 45;
+	// Larger values are stored in the zip64 records instead
+	private static final int MAX_ENTRIES = 0xFFFF;
+	private static final long MAX_OFFSET = 0xFFFFFFFFL;
+
+	private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+	private final FileChannel channel;
+	private final int dosTime;
+	private final int dosDate;
+	private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+	private final Set<String> names = new HashSet<>();
+	private boolean closed = false;
+
+	public ConcurrentZipWriter(Path path) throws IOException {
+		this(path, System.currentTimeMillis());
+	}
+
+	/**
+	 * @param time the modification time given to every entry, in milliseconds since the epoch
+	 */
+	public ConcurrentZipWriter(Path path, long time) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+
+		if (dateTime.getYear() < 1980) {
+			dateTime = LocalDateTime.of(1980, 1, 1, 0, 0);
+		}
+
+		this.dosTime = (dateTime.getHour() << 11) | (dateTime.getMinute() << 5) | (dateTime.getSecond() >> 1);
+		this.dosDate = ((dateTime.getYear() - 1980) << 9) | (dateTime.getMonthValue() << 5) | dateTime.getDayOfMonth();
+	}
+
+	/**
+	 * Compresses the data on the calling thread, and then appends it to the zip.
+	 */
+	public void putEntry(String name, byte[] data) throws IOException {
+		final CRC32 crc = new CRC32();
+		crc.update(data);
+
+		byte[] compressed = data.length > 0 ? deflate(data) : null;
+		int method = ZipEntry.DEFLATED;
+
+		if (compressed == null || compressed.length >= data.length) {
+			// Not worth compressing
+			compressed = data;
+			method = ZipEntry.STORED;
+		}
+
+		write(name, compressed, method, (int) crc.getValue(), data.length);
+	}
+
+	/**
+	 * Adds a directory entry, a trailing slash is added to the name if it does not already end with one.
+	 */
+	public void putDirectory(String name) throws IOException {
+		write(name.endsWith("/") ? name : name + "/", new byte[0], ZipEntry.STORED, 0, 0);
+	}
+
+	private static byte[] deflate(byte[] data) {
+		final Deflater deflater = DEFLATER.get();
+		deflater.reset();
+		deflater.setInput(data);
+		deflater.finish();
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(data.length / 4, 64));
+		final byte[] buffer = new byte[8192];
+
+		while (!deflater.finished()) {
+			final int length = deflater.deflate(buffer);
+			out.write(buffer, 0, length);
+		}
+
+		return out.toByteArray();
+	}
+
+	private void write(String name, byte[] data, int method, int crc, int size) throws IOException {
+		final byte[] rawName = name.getBytes(StandardCharsets.UTF_8);
+		final int versionNeeded = method == ZipEntry.DEFLATED ? VERSION_DEFLATE : VERSION_STORED;
+
+		final ByteBuffer header = ByteBuffer.allocate(LOCAL_FILE_HEADER_SIZE + rawName.length).order(ByteOrder.LITTLE_ENDIAN)
+				.putInt(LOCAL_FILE_HEADER_SIGNATURE)
+				.putShort((short) versionNeeded)
+				.putShort((short) FLAG_UTF8)
+				.putShort((short) method)
+				.putShort((short) dosTime)
+				.putShort((short) dosDate)
+				.putInt(crc)
+				.putInt(data.length)
+				.putInt(size)
+				.putShort((short) rawName.length)
+				.putShort((short) 0) // Extra field length
+				.put(rawName)
+				.flip();
+
+		synchronized (this) {
+			if (closed) {
+				throw new IOException("Zip has been closed");
+			}
+
+			if (names.contains(name)) {
+				throw new ZipException("duplicate entry: " + name);
+			}
+
+			final long localHeaderOffset = channel.position();
+			final boolean zip64 = localHeaderOffset >= MAX_OFFSET;
+
+			names.add(name);
+
+			writeFully(header);
+			writeFully(ByteBuffer.wrap(data));
+
+			final ByteBuffer record = ByteBuffer.allocate(CENTRAL_DIRECTORY_HEADER_SIZE + rawName.length + (zip64 ? ZIP64_OFFSET_EXTRA_SIZE : 0)).order(ByteOrder.LITTLE_ENDIAN)
+					.putInt(CENTRAL_DIRECTORY_SIGNATURE)
+					.putShort((short) (zip64 ? VERSION_ZIP64 : VERSION_DEFLATE)) // Version made by
+					.putShort((short) (zip64 ? VERSION_ZIP64 : versionNeeded))
+					.putShort((short) FLAG_UTF8)
+					.putShort((short) method)
+					.putShort((short) dosTime)
+					.putShort((short) dosDate)
+					.putInt(crc)
+					.putInt(data.length)
+					.putInt(size)
+					.putShort((short) rawName.length)
+					.putShort((short) (zip64 ? ZIP64_OFFSET_EXTRA_SIZE : 0)) // Extra field length
+					.putShort((short) 0) // Comment length
+					.putShort((short) 0) // Disk number start
+					.putShort((short) 0) // Internal attributes
+					.putInt(0) // External attributes
+					.putInt((int) (zip64 ? MAX_OFFSET : localHeaderOffset))
+					.put(rawName);
+
+			if (zip64) {
+				record.putShort(ZIP64_EXTRA_ID)
+						.putShort((short) Long.BYTES)
+						.putLong(localHeaderOffset);
+			}
+
+			centralDirectory.write(record.array());
+		}
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Writes the central directory, no more entries can be added after the zip is closed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+
+		try (channel) {
+			final long centralDirectoryOffset = channel.position();
+			final long centralDirectorySize = centralDirectory.size();
+			writeFully(ByteBuffer.wrap(centralDirectory.toByteArray()));
+
+			final boolean zip64 = names.size() >= MAX_ENTRIES || centralDirectoryOffset >= MAX_OFFSET || centralDirectorySize >= MAX_OFFSET;
+
+			if (zip64) {
+				final long zip64EndOffset = channel.position();
+
+				final ByteBuffer zip64End = ByteBuffer.allocate(ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE + ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+						.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+						.putLong(ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE - 12) // Size of the remaining record
+						.putShort((short) VERSION_ZIP64) // Version made by
+						.putShort((short) VERSION_ZIP64) // Version needed
+						.putInt(0) // Disk number
+						.putInt(0) // Disk with the central directory
+						.putLong(names.size())
+						.putLong(names.size())
+						.putLong(centralDirectorySize)
+						.putLong(centralDirectoryOffset)
+						.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE)
+						.putInt(0) // Disk with the zip64 end of central directory
+						.putLong(zip64EndOffset)
+						.putInt(1) // Total number of disks
+						.flip();
+				writeFully(zip64End);
+			}
+
+			final ByteBuffer endOfCentralDirectory = ByteBuffer.allocate(END_OF_CENTRAL_DIRECTORY_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+					.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+					.putShort((short) 0) // Disk number
+					.putShort((short) 0) // Disk with the central directory
+					.putShort((short) Math.min(names.size(), MAX_ENTRIES))
+					.putShort((short) Math.min(names.size(), MAX_ENTRIES))
+					.putInt((int) Math.min(centralDirectorySize, MAX_OFFSET))
+					.putInt((int) Math.min(centralDirectoryOffset, MAX_OFFSET))
+					.putShort((short) 0) // Comment length
+					.flip();
+			writeFully(endOfCentralDirectory);
+		}
+	}
+}
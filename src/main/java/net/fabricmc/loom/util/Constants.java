@@ -141,5 +141,9 @@ public class Constants {
 		public static final String DONT_REMAP = "fabric.loom.dontRemap";
 		public static final String DISABLE_REMAPPED_VARIANTS = "fabric.loom.disableRemappedVariants";
 		public static final String DISABLE_PROJECT_DEPENDENT_MODS = "fabric.loom.disableProjectDependentMods";
+		public static final String DOWNLOAD_MAX_CONNECTIONS_PER_HOST = "fabric.loom.downloadMaxConnectionsPerHost";
+		public static final String DECOMPILER_WARM_WORKERS = "fabric.loom.decompilerWarmWorkers";
+		public static final String DECOMPILER_WARM_WORKER_IDLE_TIMEOUT = "fabric.loom.decompilerWarmWorkerIdleTimeout";
+		public static final String DECOMPILER_WARM_WORKERS_MAX_MEMORY = "fabric.loom.decompilerWarmWorkersMaxMemory";
 	}
 }
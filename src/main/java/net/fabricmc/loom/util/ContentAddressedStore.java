@@ -0,0 +1,171 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A store of files keyed by their sha1 hash, laid out as {@code <root>/<first 2 chars>/<sha1>}.
+ *
+ * <p>Other layouts (such as the legacy and virtual asset directories) are materialised from the store using hardlinks,
+ * falling back to copies when the file system does not support them. This allows a file to be downloaded and written once,
+ * regardless of how many versions or projects require it.
+ *
+ * <p>Objects that are keyed by something other than the sha1 of their content are materialised with their own marker,
+ * and can be deleted once they are no longer used with {@link #deleteUnused(Duration)}.
+ */
+public final class ContentAddressedStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContentAddressedStore.class);
+	private static final String HASH_ATTRIBUTE = "LoomHash";
+	private static final String USED_SUFFIX = ".used";
+
+	private final Path root;
+	private volatile boolean hardlinksSupported = true;
+
+	public ContentAddressedStore(Path root) {
+		this.root = root;
+	}
+
+	public Path getPath(String sha1) {
+		return root.resolve(sha1.substring(0, 2)).resolve(sha1);
+	}
+
+	/**
+	 * Ensures that the target contains the object with the given hash, linking or copying it from the store as required.
+	 * The object must already exist in the store.
+	 */
+	public void materialise(String sha1, Path target) throws IOException {
+		materialise(sha1, target, "sha1:" + sha1);
+	}
+
+	/**
+	 * Ensures that the target contains the object with the given key, linking or copying it from the store as required.
+	 *
+	 * @param marker recorded on copies to identify the object they were copied from, it must change whenever the object does
+	 */
+	public void materialise(String key, Path target, String marker) throws IOException {
+		final Path source = getPath(key);
+
+		if (Files.exists(target)) {
+			if (isMaterialised(source, target, marker)) {
+				return;
+			}
+
+			Files.delete(target);
+		}
+
+		Files.createDirectories(target.getParent());
+
+		if (hardlinksSupported) {
+			try {
+				Files.createLink(target, source);
+				return;
+			} catch (FileAlreadyExistsException e) {
+				throw e;
+			} catch (UnsupportedOperationException | FileSystemException e) {
+				LOGGER.info("Unable to hardlink ({}) to ({}), falling back to copying files from the content store", source, target, e);
+				hardlinksSupported = false;
+			}
+		}
+
+		Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+		AttributeHelper.writeAttribute(target, HASH_ATTRIBUTE, marker);
+	}
+
+	/**
+	 * Records that the object with the given key is still in use, see {@link #deleteUnused(Duration)}.
+	 */
+	public void markUsed(String key) throws IOException {
+		final Path marker = getUsedMarker(getPath(key));
+		Files.createDirectories(marker.getParent());
+		Files.write(marker, new byte[0]);
+	}
+
+	/**
+	 * Deletes the objects that have not been marked as used within the given age, and are not hardlinked from elsewhere.
+	 */
+	public void deleteUnused(Duration maxAge) {
+		if (Files.notExists(root)) {
+			return;
+		}
+
+		final long cutoff = System.currentTimeMillis() - maxAge.toMillis();
+
+		try (Stream<Path> stream = Files.walk(root)) {
+			for (Path object : stream.filter(Files::isRegularFile).filter(path -> !path.getFileName().toString().endsWith(USED_SUFFIX)).toList()) {
+				try {
+					final Path marker = getUsedMarker(object);
+					final Path lastUsed = Files.exists(marker) ? marker : object;
+
+					if (Files.getLastModifiedTime(lastUsed).toMillis() >= cutoff || isLinked(object)) {
+						continue;
+					}
+
+					LOGGER.info("Deleting unused object ({}) from the content store", object);
+					Files.delete(object);
+					Files.deleteIfExists(marker);
+				} catch (IOException e) {
+					LOGGER.warn("Failed to delete unused object ({}) from the content store", object, e);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to delete unused objects from the content store ({})", root, e);
+		}
+	}
+
+	private static Path getUsedMarker(Path object) {
+		return object.resolveSibling(object.getFileName() + USED_SUFFIX);
+	}
+
+	private static boolean isLinked(Path object) throws IOException {
+		try {
+			return ((Number) Files.getAttribute(object, "unix:nlink")).intValue() > 1;
+		} catch (UnsupportedOperationException | IllegalArgumentException e) {
+			// The link count is not available, rely on the used marker alone.
+			return false;
+		}
+	}
+
+	private static boolean isMaterialised(Path source, Path target, String marker) throws IOException {
+		if (Files.isSameFile(source, target)) {
+			// Hardlinked to the store.
+			return true;
+		}
+
+		final Optional<String> hash = AttributeHelper.readAttribute(target, HASH_ATTRIBUTE);
+		return hash.isPresent() && hash.get().equalsIgnoreCase(marker);
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import net.fabricmc.loom.LoomGradlePlugin;
+
+/**
+ * Assembles a jar in memory, so that any number of transformations can be applied before it is compressed and written once.
+ *
+ * <p>Entries are keyed by their path within the jar. {@link #accept(String, byte[])} is safe to call from multiple threads,
+ * allowing this to be used as a tiny remapper output consumer.
+ */
+public final class JarAssembler {
+	private final Map<String, byte[]> entries = new LinkedHashMap<>();
+
+	/**
+	 * Adds a class as output by tiny remapper, the name is the internal class name without the .class suffix.
+	 */
+	public void accept(String className, byte[] bytes) {
+		add(className + ".class", bytes);
+	}
+
+	public synchronized void add(String path, byte[] bytes) {
+		entries.put(path, bytes);
+	}
+
+	/**
+	 * Copies all non-class files from the given zip.
+	 */
+	public void addNonClassFiles(Path zip) throws IOException {
+		try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+			Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+
+			while (zipEntries.hasMoreElements()) {
+				ZipEntry entry = zipEntries.nextElement();
+
+				if (entry.isDirectory() || entry.getName().endsWith(".class")) {
+					continue;
+				}
+
+				add(entry.getName(), zipFile.getInputStream(entry).readAllBytes());
+			}
+		}
+	}
+
+	public synchronized boolean contains(String path) {
+		return entries.containsKey(path);
+	}
+
+	/**
+	 * Replaces an existing entry, throws {@link NoSuchFileException} when the entry does not exist.
+	 */
+	public synchronized void replace(String path, byte[] bytes) throws IOException {
+		if (!entries.containsKey(path)) {
+			throw new NoSuchFileException(path);
+		}
+
+		entries.put(path, bytes);
+	}
+
+	/**
+	 * @return true when the entry exists and was transformed
+	 */
+	public synchronized boolean transform(String path, ZipUtils.UnsafeUnaryOperator<byte[]> transformer) throws IOException {
+		final byte[] bytes = entries.get(path);
+
+		if (bytes == null) {
+			return false;
+		}
+
+		entries.put(path, transformer.apply(bytes));
+		return true;
+	}
+
+	public <T> boolean transformJson(Class<T> typeOfT, String path, ZipUtils.UnsafeUnaryOperator<T> transformer) throws IOException {
+		return transform(path, bytes -> {
+			T json = LoomGradlePlugin.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), typeOfT);
+			return LoomGradlePlugin.GSON.toJson(transformer.apply(json), typeOfT).getBytes(StandardCharsets.UTF_8);
+		});
+	}
+
+	/**
+	 * Writes the assembled jar, replacing any existing file. Parent directory entries are created for every file.
+	 */
+	public synchronized void write(Path output, boolean reproducibleFileOrder, boolean preserveFileTimestamps) throws IOException {
+		final Map<String, byte[]> withDirectories = new LinkedHashMap<>();
+
+		for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+			final String path = entry.getKey();
+			int index = 0;
+
+			while ((index = path.indexOf('/', index) + 1) > 0) {
+				withDirectories.putIfAbsent(path.substring(0, index), null);
+			}
+
+			withDirectories.put(path, entry.getValue());
+		}
+
+		final List<Map.Entry<String, byte[]>> sortedEntries = new ArrayList<>(withDirectories.entrySet());
+
+		if (reproducibleFileOrder) {
+			sortedEntries.sort(Map.Entry.comparingByKey());
+		}
+
+		Files.deleteIfExists(output);
+
+		try (OutputStream outputStream = Files.newOutputStream(output);
+				ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+			for (Map.Entry<String, byte[]> entry : sortedEntries) {
+				final ZipEntry zipEntry = new ZipEntry(entry.getKey());
+
+				if (!preserveFileTimestamps) {
+					zipEntry.setTime(ZipReprocessorUtil.CONSTANT_TIME_FOR_ZIP_ENTRIES);
+					zipEntry.setLastModifiedTime(FileTime.fromMillis(ZipReprocessorUtil.CONSTANT_TIME_FOR_ZIP_ENTRIES));
+					zipEntry.setLastAccessTime(FileTime.fromMillis(ZipReprocessorUtil.CONSTANT_TIME_FOR_ZIP_ENTRIES));
+				}
+
+				zipOutputStream.putNextEntry(zipEntry);
+
+				if (entry.getValue() != null) {
+					zipOutputStream.write(entry.getValue());
+				}
+
+				zipOutputStream.closeEntry();
+			}
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+import org.cadixdev.mercury.Mercury;
+
+/**
+ * A bounded pool of {@link Mercury} instances, allowing several source trees to be remapped at the same time.
+ *
+ * <p>A Mercury instance (and its JDT environment) can only rewrite one source tree at a time, so each concurrent rewrite
+ * borrows its own instance. Instances are created on demand by the factory, which must not share any mutable state
+ * (such as a lorenz {@code MappingSet}) between the instances.
+ */
+public final class MercuryPool {
+	// A rough upper bound of the heap used by a single Mercury instance remapping against the Minecraft classpath.
+	private static final long MEMORY_PER_INSTANCE = 1024L * 1024 * 1024;
+
+	private final Supplier<Mercury> factory;
+	private final int maxInstances;
+	private final Deque<Mercury> idle = new ArrayDeque<>();
+	private int created = 0;
+
+	public MercuryPool(Supplier<Mercury> factory, int maxInstances) {
+		this.factory = factory;
+		this.maxInstances = Math.max(1, maxInstances);
+	}
+
+	/**
+	 * @return the number of Mercury instances that can run concurrently, limited by the number of processors and the max heap size.
+	 */
+	public static int getDefaultParallelism() {
+		final long maxMemory = Runtime.getRuntime().maxMemory();
+		final int byMemory = maxMemory == Long.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(1, maxMemory / MEMORY_PER_INSTANCE);
+		return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), byMemory));
+	}
+
+	public int getMaxInstances() {
+		return maxInstances;
+	}
+
+	public void rewrite(Path source, Path destination) throws Exception {
+		final Mercury mercury = acquire();
+
+		try {
+			mercury.rewrite(source, destination);
+		} finally {
+			release(mercury);
+		}
+	}
+
+	private Mercury acquire() throws InterruptedException {
+		synchronized (this) {
+			while (idle.isEmpty() && created >= maxInstances) {
+				wait();
+			}
+
+			if (!idle.isEmpty()) {
+				return idle.pop();
+			}
+
+			created++;
+		}
+
+		try {
+			return factory.get();
+		} catch (RuntimeException e) {
+			synchronized (this) {
+				created--;
+				notifyAll();
+			}
+
+			throw e;
+		}
+	}
+
+	private synchronized void release(Mercury mercury) {
+		idle.push(mercury);
+		notifyAll();
+	}
+}
@@ -26,15 +26,18 @@ package net.fabricmc.loom.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Consumer;
 
-import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.mercury.Mercury;
 import org.cadixdev.mercury.remapper.MercuryRemapper;
 import org.gradle.api.JavaVersion;
@@ -50,16 +53,15 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.RemapConfigurationSettings;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.configuration.providers.mappings.MappingConfiguration;
-import net.fabricmc.loom.task.service.LorenzMappingService;
 import net.fabricmc.loom.util.service.SharedServiceManager;
+import net.fabricmc.lorenztiny.TinyMappingsReader;
+import net.fabricmc.mappingio.tree.MemoryMappingTree;
 
 public class SourceRemapper {
 	private final Project project;
 	private final SharedServiceManager serviceManager;
 	private final boolean toNamed;
-	private final List<Consumer<ProgressLogger>> remapTasks = new ArrayList<>();
-
-	private Mercury mercury;
+	private final List<ScheduledRemap> remapTasks = new ArrayList<>();
 
 	public SourceRemapper(Project project, SharedServiceManager serviceManager, boolean toNamed) {
 		this.project = project;
@@ -68,21 +70,7 @@ public class SourceRemapper {
 	}
 
 	public void scheduleRemapSources(File source, File destination, boolean reproducibleFileOrder, boolean preserveFileTimestamps, Runnable completionCallback) {
-		remapTasks.add((logger) -> {
-			try {
-				logger.progress("remapping sources - " + source.getName());
-				remapSourcesInner(source, destination);
-				ZipReprocessorUtil.reprocessZip(destination, reproducibleFileOrder, preserveFileTimestamps);
-
-				// Set the remapped sources creation date to match the sources if we're likely succeeded in making it
-				destination.setLastModified(source.lastModified());
-				completionCallback.run();
-			} catch (Exception e) {
-				// Failed to remap, lets clean up to ensure we try again next time
-				destination.delete();
-				throw new RuntimeException("Failed to remap sources for " + source, e);
-			}
-		});
+		remapTasks.add(new ScheduledRemap(source, destination, reproducibleFileOrder, preserveFileTimestamps, completionCallback));
 	}
 
 	public void remapAll() {
@@ -96,17 +84,83 @@ public class SourceRemapper {
 		ProgressLogger progressLogger = progressLoggerFactory.newOperation(SourceRemapper.class.getName());
 		progressLogger.start("Remapping dependency sources", "sources");
 
-		remapTasks.forEach(consumer -> consumer.accept(progressLogger));
+		final MercuryPool mercuryPool = createMercuryPool();
+		final int threads = Math.min(remapTasks.size(), mercuryPool.getMaxInstances());
+		final List<ScheduledRemap> completed = new ArrayList<>();
+		RuntimeException failure = null;
+
+		if (threads == 1) {
+			// Failures are handled the same way as on the parallel path, the remaining tasks still run.
+			for (ScheduledRemap task : remapTasks) {
+				try {
+					remap(task, mercuryPool, progressLogger);
+					completed.add(task);
+				} catch (RuntimeException e) {
+					if (failure == null) {
+						failure = e;
+					}
+				}
+			}
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+			try {
+				final List<Future<?>> futures = remapTasks.stream().<Future<?>>map(task -> executor.submit(() -> remap(task, mercuryPool, progressLogger))).toList();
+
+				for (int i = 0; i < futures.size(); i++) {
+					try {
+						futures.get(i).get();
+						completed.add(remapTasks.get(i));
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new RuntimeException("Interrupted while remapping sources", e);
+					} catch (ExecutionException e) {
+						if (failure == null) {
+							failure = e.getCause() instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(e.getCause());
+						}
+					}
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		}
 
 		progressLogger.completed();
 
+		// The callbacks may access the project, so are run on this thread once the sources have been remapped.
+		completed.forEach(task -> task.completionCallback().run());
+
+		if (failure != null) {
+			throw failure;
+		}
+
 		// TODO: FIXME - WORKAROUND https://github.com/FabricMC/fabric-loom/issues/45
 		System.gc();
 	}
 
-	private void remapSourcesInner(File source, File destination) throws Exception {
+	private void remap(ScheduledRemap task, MercuryPool mercuryPool, ProgressLogger progressLogger) {
+		final File source = task.source();
+		final File destination = task.destination();
+
+		try {
+			synchronized (progressLogger) {
+				progressLogger.progress("remapping sources - " + source.getName());
+			}
+
+			remapSourcesInner(source, destination, mercuryPool);
+			ZipReprocessorUtil.reprocessZip(destination, task.reproducibleFileOrder(), task.preserveFileTimestamps());
+
+			// Set the remapped sources creation date to match the sources if we're likely succeeded in making it
+			destination.setLastModified(source.lastModified());
+		} catch (Exception e) {
+			// Failed to remap, lets clean up to ensure we try again next time
+			destination.delete();
+			throw new RuntimeException("Failed to remap sources for " + source, e);
+		}
+	}
+
+	private void remapSourcesInner(File source, File destination, MercuryPool mercuryPool) throws Exception {
 		project.getLogger().info(":remapping source jar");
-		Mercury mercury = getMercuryInstance();
 
 		if (source.equals(destination)) {
 			if (source.isDirectory()) {
@@ -142,7 +196,7 @@ public class SourceRemapper {
 		Path dstPath = dstFs != null ? dstFs.get().getPath("/") : destination.toPath();
 
 		try {
-			mercury.rewrite(srcPath, dstPath);
+			mercuryPool.rewrite(srcPath, dstPath);
 		} catch (Exception e) {
 			project.getLogger().warn("Could not remap " + source.getName() + " fully!", e);
 		}
@@ -158,51 +212,55 @@ public class SourceRemapper {
 		}
 	}
 
-	private Mercury getMercuryInstance() {
-		if (this.mercury != null) {
-			return this.mercury;
-		}
-
+	/**
+	 * Resolves everything that requires the project up front, so that the Mercury instances can be created on the worker threads.
+	 */
+	private MercuryPool createMercuryPool() {
 		LoomGradleExtension extension = LoomGradleExtension.get(project);
 		MappingConfiguration mappingConfiguration = extension.getMappingConfiguration();
 
-		MappingSet mappings = LorenzMappingService.create(serviceManager,
-															mappingConfiguration,
-															toNamed ? MappingsNamespace.INTERMEDIARY : MappingsNamespace.NAMED,
-															toNamed ? MappingsNamespace.NAMED : MappingsNamespace.INTERMEDIARY
-		).mappings();
+		final MemoryMappingTree mappingTree = mappingConfiguration.getMappingsService(serviceManager).getMappingTree();
+		final String from = (toNamed ? MappingsNamespace.INTERMEDIARY : MappingsNamespace.NAMED).toString();
+		final String to = (toNamed ? MappingsNamespace.NAMED : MappingsNamespace.INTERMEDIARY).toString();
 
-		Mercury mercury = createMercuryWithClassPath(project, toNamed);
-		mercury.setSourceCompatibilityFromRelease(getJavaCompileRelease(project));
+		final List<Path> classPath = new ArrayList<>(createMercuryWithClassPath(project, toNamed).getClassPath());
 
 		for (File file : extension.getUnmappedModCollection()) {
 			Path path = file.toPath();
 
 			if (Files.isRegularFile(path)) {
-				mercury.getClassPath().add(path);
+				classPath.add(path);
 			}
 		}
 
-		for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY)) {
-			mercury.getClassPath().add(intermediaryJar);
-		}
-
-		for (Path intermediaryJar : extension.getMinecraftJars(MappingsNamespace.NAMED)) {
-			mercury.getClassPath().add(intermediaryJar);
-		}
+		classPath.addAll(extension.getMinecraftJars(MappingsNamespace.INTERMEDIARY));
+		classPath.addAll(extension.getMinecraftJars(MappingsNamespace.NAMED));
 
 		Set<File> files = project.getConfigurations()
 				.detachedConfiguration(project.getDependencies().create(Constants.Dependencies.JETBRAINS_ANNOTATIONS + Constants.Dependencies.Versions.JETBRAINS_ANNOTATIONS))
 				.resolve();
 
 		for (File file : files) {
-			mercury.getClassPath().add(file.toPath());
+			classPath.add(file.toPath());
 		}
 
-		mercury.getProcessors().add(MercuryRemapper.create(mappings));
+		final int javaCompileRelease = getJavaCompileRelease(project);
 
-		this.mercury = mercury;
-		return this.mercury;
+		return new MercuryPool(() -> {
+			Mercury mercury = new Mercury();
+			mercury.setGracefulClasspathChecks(true);
+			mercury.setSourceCompatibilityFromRelease(javaCompileRelease);
+			mercury.getClassPath().addAll(classPath);
+
+			// Each instance gets its own mapping set, as mercury completes the class mappings while remapping.
+			try (var reader = new TinyMappingsReader(mappingTree, from, to)) {
+				mercury.getProcessors().add(MercuryRemapper.create(reader.read()));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to read lorenz mappings", e);
+			}
+
+			return mercury;
+		}, MercuryPool.getDefaultParallelism());
 	}
 
 	public static int getJavaCompileRelease(Project project) {
@@ -281,4 +339,7 @@ public class SourceRemapper {
 		// ".java" is not a valid java file
 		return name.endsWith(".java") && name.length() != 5;
 	}
+
+	private record ScheduledRemap(File source, File destination, boolean reproducibleFileOrder, boolean preserveFileTimestamps, Runnable completionCallback) {
+	}
 }
@@ -37,7 +37,6 @@ import org.gradle.api.Project;
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.mappings.layered.MappingsNamespace;
 import net.fabricmc.loom.util.service.SharedServiceManager;
-import net.fabricmc.mappingio.MappingReader;
 import net.fabricmc.mappingio.tree.MappingTree;
 import net.fabricmc.mappingio.tree.MemoryMappingTree;
 import net.fabricmc.tinyremapper.IMappingProvider;
@@ -104,9 +103,7 @@ public final class TinyRemapperHelper {
 	}
 
 	public static IMappingProvider create(Path mappings, String from, String to, boolean remapLocalVariables) throws IOException {
-		MemoryMappingTree mappingTree = new MemoryMappingTree();
-		MappingReader.read(mappings, mappingTree);
-		return create(mappingTree, from, to, remapLocalVariables);
+		return create(BinaryMappingCache.read(mappings), from, to, remapLocalVariables);
 	}
 
 	public static IMappingProvider create(MappingTree mappings, String from, String to, boolean remapLocalVariables) {
@@ -1,7 +1,7 @@
 /*
  * This file is part of fabric-loom, licensed under the MIT License (MIT).
  *
- * Copyright (c) 2016-2021 FabricMC
+ * Copyright (c) 2016-2023 FabricMC
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -26,31 +26,112 @@ package net.fabricmc.loom.util;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
+import org.jetbrains.annotations.Nullable;
+
 public class ZipReprocessorUtil {
 	/**
 	 * See {@link org.gradle.api.internal.file.archive.ZipCopyAction} about this.
 	 */
-	private static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
+	static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
+	// CONSTANT_TIME_FOR_ZIP_ENTRIES as an MS-DOS date and time, 1980-02-01 00:00:00.
+	private static final int CONSTANT_DOS_DATE = (2 << 5) | 1;
+	private static final int CONSTANT_DOS_TIME = 0;
+
+	private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+	private static final int LOCAL_FILE_HEADER_SIZE = 30;
+	private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private static final int FLAG_ENCRYPTED = 1;
+	private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+	private static final int FLAG_UTF8 = 1 << 11;
+	private static final int VERSION_DEFLATE = 20;
 
 	private ZipReprocessorUtil() { }
 
+	/**
+	 * Rewrites the zip with a reproducible file order and/or constant timestamps.
+	 *
+	 * <p>The compressed data of each entry is copied as is, only the headers are rewritten. Stored entries are deflated in parallel,
+	 * matching the previous behaviour of re-compressing every entry. Zips that cannot be copied raw (zip64 or encrypted)
+	 * are re-compressed entry by entry. In both cases the output is streamed to a temporary file that then replaces the input.
+	 */
 	public static void reprocessZip(File file, boolean reproducibleFileOrder, boolean preserveFileTimestamps) throws IOException {
 		if (!reproducibleFileOrder && preserveFileTimestamps) {
 			return;
 		}
 
-		try (ZipFile zipFile = new ZipFile(file)) {
+		final Path path = file.toPath().toAbsolutePath();
+		final Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+		try {
+			boolean copied;
+
+			try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ)) {
+				final List<RawEntry> entries = readCentralDirectory(input);
+
+				if (entries != null) {
+					if (reproducibleFileOrder) {
+						entries.sort(Comparator.comparing(RawEntry::name));
+					}
+
+					try (FileChannel output = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+						writeRaw(input, output, entries, preserveFileTimestamps);
+					}
+				}
+
+				copied = entries != null;
+			}
+
+			if (!copied) {
+				recompress(file, tempFile, reproducibleFileOrder, preserveFileTimestamps);
+			}
+
+			try {
+				Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private static void recompress(File file, Path output, boolean reproducibleFileOrder, boolean preserveFileTimestamps) throws IOException {
+		try (ZipFile zipFile = new ZipFile(file);
+				OutputStream outputStream = Files.newOutputStream(output);
+				ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
 			ZipEntry[] entries;
 
 			if (reproducibleFileOrder) {
@@ -59,35 +140,304 @@ public class ZipReprocessorUtil {
 				entries = zipFile.stream().toArray(ZipEntry[]::new);
 			}
 
-			ByteArrayOutputStream outZip = new ByteArrayOutputStream(zipFile.size());
+			for (ZipEntry entry : entries) {
+				ZipEntry newEntry = entry;
+
+				if (!preserveFileTimestamps) {
+					newEntry = new ZipEntry(entry.getName());
+					newEntry.setTime(CONSTANT_TIME_FOR_ZIP_ENTRIES);
+					newEntry.setLastModifiedTime(FileTime.fromMillis(CONSTANT_TIME_FOR_ZIP_ENTRIES));
+					newEntry.setLastAccessTime(FileTime.fromMillis(CONSTANT_TIME_FOR_ZIP_ENTRIES));
+				}
 
-			try (ZipOutputStream zipOutputStream = new ZipOutputStream(outZip)) {
-				for (ZipEntry entry : entries) {
-					ZipEntry newEntry = entry;
+				zipOutputStream.putNextEntry(newEntry);
 
-					if (!preserveFileTimestamps) {
-						newEntry = new ZipEntry(entry.getName());
-						newEntry.setTime(CONSTANT_TIME_FOR_ZIP_ENTRIES);
-						newEntry.setLastModifiedTime(FileTime.fromMillis(CONSTANT_TIME_FOR_ZIP_ENTRIES));
-						newEntry.setLastAccessTime(FileTime.fromMillis(CONSTANT_TIME_FOR_ZIP_ENTRIES));
-					}
+				try (InputStream inputStream = zipFile.getInputStream(entry)) {
+					inputStream.transferTo(zipOutputStream);
+				}
+
+				zipOutputStream.closeEntry();
+			}
+		}
+	}
+
+	/**
+	 * @return the entries in the central directory, or null when the zip cannot be copied raw
+	 */
+	@Nullable
+	private static List<RawEntry> readCentralDirectory(FileChannel channel) throws IOException {
+		final long fileSize = channel.size();
+
+		if (fileSize < END_OF_CENTRAL_DIRECTORY_SIZE || fileSize > Integer.MAX_VALUE) {
+			return null;
+		}
+
+		// The end of central directory record is followed by a comment of up to 64KiB
+		final int tailSize = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+		final ByteBuffer tail = readFully(channel, fileSize - tailSize, tailSize);
+		int eocd = -1;
+
+		for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+				eocd = i;
+				break;
+			}
+		}
+
+		if (eocd < 0) {
+			return null;
+		}
+
+		final int diskNumber = tail.getShort(eocd + 4) & 0xFFFF;
+		final int entryCount = tail.getShort(eocd + 10) & 0xFFFF;
+		final long centralDirectorySize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+		final long centralDirectoryOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+
+		if (diskNumber != 0 || entryCount == 0xFFFF || centralDirectoryOffset + centralDirectorySize > fileSize) {
+			// Multi disk or zip64
+			return null;
+		}
+
+		final ByteBuffer centralDirectory = readFully(channel, centralDirectoryOffset, (int) centralDirectorySize);
+		final List<RawEntry> entries = new ArrayList<>(entryCount);
+		final ByteBuffer localHeader = ByteBuffer.allocate(LOCAL_FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		for (int i = 0; i < entryCount; i++) {
+			if (centralDirectory.remaining() < CENTRAL_DIRECTORY_HEADER_SIZE || centralDirectory.getInt() != CENTRAL_DIRECTORY_SIGNATURE) {
+				return null;
+			}
+
+			final int versionMadeBy = centralDirectory.getShort() & 0xFFFF;
+			final int versionNeeded = centralDirectory.getShort() & 0xFFFF;
+			final int flags = centralDirectory.getShort() & 0xFFFF;
+			final int method = centralDirectory.getShort() & 0xFFFF;
+			final int dosTime = centralDirectory.getShort() & 0xFFFF;
+			final int dosDate = centralDirectory.getShort() & 0xFFFF;
+			final int crc = centralDirectory.getInt();
+			final long compressedSize = centralDirectory.getInt() & 0xFFFFFFFFL;
+			final long size = centralDirectory.getInt() & 0xFFFFFFFFL;
+			final int nameLength = centralDirectory.getShort() & 0xFFFF;
+			final int extraLength = centralDirectory.getShort() & 0xFFFF;
+			final int commentLength = centralDirectory.getShort() & 0xFFFF;
+			centralDirectory.getShort(); // Disk number start
+			final int internalAttributes = centralDirectory.getShort() & 0xFFFF;
+			final int externalAttributes = centralDirectory.getInt();
+			final long localHeaderOffset = centralDirectory.getInt() & 0xFFFFFFFFL;
+
+			if ((flags & FLAG_ENCRYPTED) != 0 || compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL
+					|| centralDirectory.remaining() < nameLength + extraLength + commentLength) {
+				return null;
+			}
+
+			final byte[] rawName = new byte[nameLength];
+			final byte[] extra = new byte[extraLength];
+			final byte[] comment = new byte[commentLength];
+			centralDirectory.get(rawName).get(extra).get(comment);
 
-					zipOutputStream.putNextEntry(newEntry);
-					InputStream inputStream = zipFile.getInputStream(entry);
-					byte[] buf = new byte[1024];
-					int length;
+			// The local header's name and extra field lengths may differ from the central directory
+			localHeader.clear();
+			readFully(channel, localHeaderOffset, localHeader);
 
-					while ((length = inputStream.read(buf)) > 0) {
-						zipOutputStream.write(buf, 0, length);
+			if (localHeader.getInt(0) != LOCAL_FILE_HEADER_SIGNATURE) {
+				return null;
+			}
+
+			final long dataOffset = localHeaderOffset + LOCAL_FILE_HEADER_SIZE + (localHeader.getShort(26) & 0xFFFF) + (localHeader.getShort(28) & 0xFFFF);
+
+			if (dataOffset + compressedSize > fileSize) {
+				return null;
+			}
+
+			final String name = new String(rawName, (flags & FLAG_UTF8) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+			entries.add(new RawEntry(name, rawName, versionMadeBy, versionNeeded, flags & ~FLAG_DATA_DESCRIPTOR, method, dosTime, dosDate, crc,
+					compressedSize, size, extra, comment, internalAttributes, externalAttributes, dataOffset));
+		}
+
+		return entries;
+	}
+
+	private static void writeRaw(FileChannel input, FileChannel output, List<RawEntry> entries, boolean preserveFileTimestamps) throws IOException {
+		// Stored entries are deflated to match ZipOutputStream, unless the entries are preserved as they are.
+		final boolean deflateStored = !preserveFileTimestamps && entries.stream().anyMatch(ZipReprocessorUtil::shouldDeflate);
+		final int threads = Runtime.getRuntime().availableProcessors();
+		// Bounds the number of deflated entries held in memory while waiting to be written.
+		final int window = threads * 2;
+		final List<Future<byte[]>> deflated = new ArrayList<>(Collections.nCopies(entries.size(), null));
+		ExecutorService executor = deflateStored ? Executors.newFixedThreadPool(threads) : null;
+		int submitted = 0;
+
+		try {
+			final ByteBuffer centralDirectory = ByteBuffer.allocate(entries.stream().mapToInt(entry -> CENTRAL_DIRECTORY_HEADER_SIZE + entry.rawName().length
+					+ (preserveFileTimestamps ? entry.extra().length : 0) + entry.comment().length).sum()).order(ByteOrder.LITTLE_ENDIAN);
+			final ByteBuffer header = ByteBuffer.allocate(LOCAL_FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			for (int i = 0; i < entries.size(); i++) {
+				if (executor != null) {
+					for (; submitted < entries.size() && submitted < i + window; submitted++) {
+						final RawEntry toDeflate = entries.get(submitted);
+
+						if (shouldDeflate(toDeflate)) {
+							deflated.set(submitted, executor.submit(() -> deflate(input, toDeflate)));
+						}
 					}
+				}
 
-					zipOutputStream.closeEntry();
+				final RawEntry entry = entries.get(i);
+				final Future<byte[]> future = deflated.set(i, null);
+				final byte[] deflatedData = future != null ? getDeflated(future, entry) : null;
+
+				final int versionNeeded = deflatedData != null ? Math.max(entry.versionNeeded(), VERSION_DEFLATE) : entry.versionNeeded();
+				final int method = deflatedData != null ? ZipEntry.DEFLATED : entry.method();
+				final long compressedSize = deflatedData != null ? deflatedData.length : entry.compressedSize();
+				final int dosTime = preserveFileTimestamps ? entry.dosTime() : CONSTANT_DOS_TIME;
+				final int dosDate = preserveFileTimestamps ? entry.dosDate() : CONSTANT_DOS_DATE;
+				// Extra fields may contain extended timestamps, so are dropped when timestamps are not preserved.
+				final byte[] extra = preserveFileTimestamps ? entry.extra() : new byte[0];
+				final long localHeaderOffset = output.position();
+
+				header.clear();
+				header.putInt(LOCAL_FILE_HEADER_SIGNATURE)
+						.putShort((short) versionNeeded)
+						.putShort((short) entry.flags())
+						.putShort((short) method)
+						.putShort((short) dosTime)
+						.putShort((short) dosDate)
+						.putInt(entry.crc())
+						.putInt((int) compressedSize)
+						.putInt((int) entry.size())
+						.putShort((short) entry.rawName().length)
+						.putShort((short) extra.length)
+						.flip();
+				writeFully(output, header);
+				writeFully(output, ByteBuffer.wrap(entry.rawName()));
+				writeFully(output, ByteBuffer.wrap(extra));
+
+				if (deflatedData != null) {
+					writeFully(output, ByteBuffer.wrap(deflatedData));
+				} else {
+					transferFully(input, entry.dataOffset(), entry.compressedSize(), output);
 				}
+
+				centralDirectory.putInt(CENTRAL_DIRECTORY_SIGNATURE)
+						.putShort((short) entry.versionMadeBy())
+						.putShort((short) versionNeeded)
+						.putShort((short) entry.flags())
+						.putShort((short) method)
+						.putShort((short) dosTime)
+						.putShort((short) dosDate)
+						.putInt(entry.crc())
+						.putInt((int) compressedSize)
+						.putInt((int) entry.size())
+						.putShort((short) entry.rawName().length)
+						.putShort((short) extra.length)
+						.putShort((short) entry.comment().length)
+						.putShort((short) 0) // Disk number start
+						.putShort((short) entry.internalAttributes())
+						.putInt(entry.externalAttributes())
+						.putInt((int) localHeaderOffset)
+						.put(entry.rawName())
+						.put(extra)
+						.put(entry.comment());
+			}
+
+			final long centralDirectoryOffset = output.position();
+			centralDirectory.flip();
+			writeFully(output, centralDirectory);
+
+			final ByteBuffer endOfCentralDirectory = ByteBuffer.allocate(END_OF_CENTRAL_DIRECTORY_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+					.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+					.putShort((short) 0) // Disk number
+					.putShort((short) 0) // Disk with the central directory
+					.putShort((short) entries.size())
+					.putShort((short) entries.size())
+					.putInt(centralDirectory.limit())
+					.putInt((int) centralDirectoryOffset)
+					.putShort((short) 0) // Comment length
+					.flip();
+			writeFully(output, endOfCentralDirectory);
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	private static boolean shouldDeflate(RawEntry entry) {
+		return entry.method() == ZipEntry.STORED && entry.size() > 0;
+	}
+
+	private static byte[] deflate(FileChannel input, RawEntry entry) throws IOException {
+		final ByteBuffer data = readFully(input, entry.dataOffset(), (int) entry.size());
+		final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+
+			final ByteArrayOutputStream out = new ByteArrayOutputStream((int) entry.size());
+			final byte[] buffer = new byte[8192];
+
+			while (!deflater.finished()) {
+				final int length = deflater.deflate(buffer);
+				out.write(buffer, 0, length);
 			}
 
-			try (FileOutputStream fileOutputStream = new FileOutputStream(file)) {
-				outZip.writeTo(fileOutputStream);
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] getDeflated(Future<byte[]> future, RawEntry entry) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing " + entry.name(), e);
+		} catch (ExecutionException e) {
+			throw new IOException("Failed to compress " + entry.name(), e.getCause());
+		}
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, position, buffer);
+		buffer.flip();
+		return buffer;
+	}
+
+	private static void readFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			final int read = channel.read(buffer, position);
+
+			if (read < 0) {
+				throw new IOException("Unexpected end of zip");
 			}
+
+			position += read;
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static void transferFully(FileChannel input, long position, long count, FileChannel output) throws IOException {
+		while (count > 0) {
+			final long transferred = input.transferTo(position, count, output);
+
+			if (transferred <= 0) {
+				throw new IOException("Unexpected end of zip");
+			}
+
+			position += transferred;
+			count -= transferred;
 		}
 	}
+
+	private record RawEntry(String name, byte[] rawName, int versionMadeBy, int versionNeeded, int flags, int method, int dosTime, int dosDate, int crc,
+			long compressedSize, long size, byte[] extra, byte[] comment, int internalAttributes, int externalAttributes, long dataOffset) {
+	}
 }
@@ -28,7 +28,6 @@ import static com.google.common.io.Files.createParentDirs;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.ProxySelector;
@@ -38,21 +37,30 @@ import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributeView;
 import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +70,9 @@ import net.fabricmc.loom.util.Checksum;
 public final class Download {
 	private static final String E_TAG = "ETag";
 	private static final Logger LOGGER = LoggerFactory.getLogger(Download.class);
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+	private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
 
 	public static DownloadBuilder create(String url) throws URISyntaxException {
 		return DownloadBuilder.create(url);
@@ -69,6 +80,8 @@ public final class Download {
 
 	private final URI url;
 	private final String expectedHash;
+	private final long expectedSize;
+	private final boolean resumable;
 	private final boolean useEtag;
 	private final boolean forceDownload;
 	private final boolean offline;
@@ -76,10 +89,14 @@ public final class Download {
 	private final DownloadProgressListener progressListener;
 	private final HttpClient.Version httpVersion;
 	private final int downloadAttempt;
+	@Nullable
+	private final DownloadTransport transport;
 
-	Download(URI url, String expectedHash, boolean useEtag, boolean forceDownload, boolean offline, Duration maxAge, DownloadProgressListener progressListener, HttpClient.Version httpVersion, int downloadAttempt) {
+	Download(URI url, String expectedHash, long expectedSize, boolean resumable, boolean useEtag, boolean forceDownload, boolean offline, Duration maxAge, DownloadProgressListener progressListener, HttpClient.Version httpVersion, int downloadAttempt, @Nullable DownloadTransport transport) {
 		this.url = url;
 		this.expectedHash = expectedHash;
+		this.expectedSize = expectedSize;
+		this.resumable = resumable;
 		this.useEtag = useEtag;
 		this.forceDownload = forceDownload;
 		this.offline = offline;
@@ -87,6 +104,7 @@ public final class Download {
 		this.progressListener = progressListener;
 		this.httpVersion = httpVersion;
 		this.downloadAttempt = downloadAttempt;
+		this.transport = transport;
 	}
 
 	private HttpClient getHttpClient() throws DownloadException {
@@ -94,12 +112,29 @@ public final class Download {
 			throw error("Unable to download %s in offline mode", this.url);
 		}
 
+		if (transport != null) {
+			// Share the pooled connections with all other downloads using this transport.
+			return transport.getHttpClient();
+		}
+
 		return HttpClient.newBuilder()
 				.followRedirects(HttpClient.Redirect.ALWAYS)
 				.proxy(ProxySelector.getDefault())
 				.build();
 	}
 
+	private DownloadTransport.HostPermit acquirePermit() throws DownloadException {
+		if (transport == null) {
+			return () -> { };
+		}
+
+		try {
+			return transport.acquire(url);
+		} catch (InterruptedException e) {
+			throw error(e, "Interrupted while waiting to download (%s)", url);
+		}
+	}
+
 	private HttpRequest getRequest() {
 		return HttpRequest.newBuilder(url)
 				.version(httpVersion)
@@ -115,6 +150,14 @@ public final class Download {
 				.build();
 	}
 
+	private HttpRequest getRangeRequest(long start) {
+		return HttpRequest.newBuilder(url)
+				.version(httpVersion)
+				.GET()
+				.header("Range", "bytes=%d-".formatted(start))
+				.build();
+	}
+
 	private <T> HttpResponse<T> send(HttpRequest httpRequest, HttpResponse.BodyHandler<T> bodyHandler) throws DownloadException {
 		progressListener.onStart();
 
@@ -126,6 +169,12 @@ public final class Download {
 	}
 
 	String downloadString() throws DownloadException {
+		try (DownloadTransport.HostPermit permit = acquirePermit()) {
+			return doDownloadString();
+		}
+	}
+
+	private String doDownloadString() throws DownloadException {
 		final HttpResponse<InputStream> response = send(getRequest(), HttpResponse.BodyHandlers.ofInputStream());
 		final int statusCode = response.statusCode();
 		final boolean successful = statusCode >= 200 && statusCode < 300;
@@ -151,7 +200,7 @@ public final class Download {
 			return;
 		}
 
-		try {
+		try (DownloadTransport.HostPermit permit = acquirePermit()) {
 			doDownload(output);
 		} catch (Throwable throwable) {
 			tryCleanup(output);
@@ -174,9 +223,18 @@ public final class Download {
 			throw error(e, "Failed to create parent directories");
 		}
 
-		final HttpRequest httpRequest = eTag
-				.map(this::getETagRequest)
-				.orElseGet(this::getRequest);
+		final Path partFile = getPartFile(output);
+		final long resumeFrom = getResumePosition(partFile);
+		final HttpRequest httpRequest;
+
+		if (resumeFrom > 0) {
+			LOGGER.info("Resuming download of ({}) from {} bytes", url, resumeFrom);
+			httpRequest = getRangeRequest(resumeFrom);
+		} else {
+			httpRequest = eTag
+					.map(this::getETagRequest)
+					.orElseGet(this::getRequest);
+		}
 
 		// Create a .lock file, this allows us to re-download if the download was forcefully aborted part way through.
 		createLock(output);
@@ -191,47 +249,56 @@ public final class Download {
 			return;
 		}
 
-		if (success) {
-			try {
-				Files.deleteIfExists(output);
-			} catch (IOException e) {
-				throw error(e, "Failed to delete existing file");
-			}
+		if (statusCode == HTTP_RANGE_NOT_SATISFIABLE && resumeFrom > 0) {
+			// The partial file is not a prefix of the remote file, start again on the next attempt.
+			deletePartFile(partFile);
+			throw error("Server could not resume download from %d bytes", resumeFrom);
+		}
 
-			final long length = Long.parseLong(response.headers().firstValue("Content-Length").orElse("-1"));
-			AtomicLong totalBytes = new AtomicLong(0);
+		if (!success) {
+			throw error("HTTP request returned unsuccessful status (%d)", statusCode);
+		}
 
-			try (OutputStream outputStream = Files.newOutputStream(output, StandardOpenOption.CREATE_NEW)) {
-				copyWithCallback(decodeOutput(response), outputStream, value -> {
-					if (length < 0) {
-						return;
-					}
+		// The server may ignore the range request and send the whole file.
+		final long offset = statusCode == HttpURLConnection.HTTP_PARTIAL ? validateContentRange(response, resumeFrom, partFile) : 0;
+		final long length = Long.parseLong(response.headers().firstValue("Content-Length").orElse("-1"));
+		final MessageDigest digest = expectedHash != null ? createDigest() : null;
+		final long writtenBytes;
 
-					progressListener.onProgress(totalBytes.addAndGet(value), length);
-				});
-			} catch (IOException e) {
-				throw error(e, "Failed to decode and write download output");
+		try {
+			if (offset > 0 && digest != null) {
+				hashExisting(partFile, digest);
 			}
 
-			if (Files.notExists(output)) {
-				throw error("No file was downloaded");
+			try (InputStream inputStream = decodeOutput(response)) {
+				writtenBytes = writeAndHash(inputStream, partFile, digest, offset, length);
 			}
+		} catch (IOException e) {
+			throw error(e, "Failed to decode and write download output");
+		}
 
-			if (length > 0) {
-				try {
-					final long actualLength = Files.size(output);
+		if (length > 0 && writtenBytes != length) {
+			throw error("Unexpected file length of %d bytes, expected %d bytes".formatted(writtenBytes, length));
+		}
 
-					if (actualLength != length) {
-						throw error("Unexpected file length of %d bytes, expected %d bytes".formatted(actualLength, length));
-					}
-				} catch (IOException e) {
-					throw error(e);
-				}
+		if (expectedSize > 0 && offset + writtenBytes != expectedSize) {
+			deletePartFile(partFile);
+			throw error("Unexpected file length of %d bytes, expected %d bytes".formatted(offset + writtenBytes, expectedSize));
+		}
+
+		if (digest != null) {
+			// Ensure we downloaded the expected hash, the digest was computed as the file was written.
+			final String downloadedHash = Checksum.toHex(digest.digest());
+
+			if (!downloadedHash.equalsIgnoreCase(getExpectedHashValue())) {
+				deletePartFile(partFile);
+				throw error("Failed to download (%s) with expected hash: %s got %s", url, expectedHash, downloadedHash);
 			}
-		} else {
-			throw error("HTTP request returned unsuccessful status (%d)", statusCode);
 		}
 
+		// Only replace the output once the download is complete and valid.
+		moveIntoPlace(partFile, output);
+
 		if (useEtag) {
 			final HttpHeaders headers = response.headers();
 			final String responseETag = headers.firstValue(E_TAG.toLowerCase(Locale.ROOT)).orElse(null);
@@ -242,33 +309,140 @@ public final class Download {
 		}
 
 		if (expectedHash != null) {
-			// Ensure we downloaded the expected hash.
-			if (!isHashValid(output)) {
-				String downloadedHash;
-
-				try {
-					downloadedHash = Checksum.sha1Hex(output);
-					Files.deleteIfExists(output);
-				} catch (IOException e) {
-					downloadedHash = "unknown hash";
+			// Write the hash to the file attribute, saves a lot of time trying to re-compute the hash when re-visiting this file.
+			writeHash(output, expectedHash);
+		}
+	}
+
+	/**
+	 * Writes the stream to the output file, updating the digest with the same bytes to avoid having to re-read the file.
+	 *
+	 * <p>When offset is greater than zero the output is appended to, and is expected to already be offset bytes long.
+	 *
+	 * @return the number of bytes written
+	 */
+	private long writeAndHash(InputStream inputStream, Path output, @Nullable MessageDigest digest, long offset, long length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		final StandardOpenOption mode = offset > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+		long totalBytes = 0;
+
+		try (ReadableByteChannel source = Channels.newChannel(inputStream);
+				FileChannel target = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+			while (source.read(buffer) >= 0) {
+				buffer.flip();
+
+				if (digest != null) {
+					digest.update(buffer.duplicate());
 				}
 
-				throw error("Failed to download (%s) with expected hash: %s got %s", url, expectedHash, downloadedHash);
+				while (buffer.hasRemaining()) {
+					totalBytes += target.write(buffer);
+				}
+
+				buffer.clear();
+
+				if (length >= 0) {
+					progressListener.onProgress(offset + totalBytes, offset + length);
+				}
 			}
+		}
 
-			// Write the hash to the file attribute, saves a lot of time trying to re-compute the hash when re-visiting this file.
-			writeHash(output, expectedHash);
+		return totalBytes;
+	}
+
+	private void hashExisting(Path path, MessageDigest digest) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
 		}
 	}
 
-	private void copyWithCallback(InputStream is, OutputStream os, IntConsumer consumer) throws IOException {
-		byte[] buffer = new byte[1024];
-		int length;
+	/**
+	 * @return the number of bytes of a previous partial download that can be resumed from, or 0 to start from the beginning.
+	 */
+	private long getResumePosition(Path partFile) throws DownloadException {
+		if (!resumable || !exists(partFile)) {
+			return 0;
+		}
 
-		while ((length = is.read(buffer)) > 0) {
-			os.write(buffer, 0, length);
-			consumer.accept(length);
+		if (forceDownload) {
+			deletePartFile(partFile);
+			return 0;
 		}
+
+		final long size;
+
+		try {
+			size = Files.size(partFile);
+		} catch (IOException e) {
+			throw error(e, "Failed to read size of (%s)", partFile);
+		}
+
+		if (expectedSize > 0 && size >= expectedSize) {
+			// Cannot be a valid partial download, the complete file would have been moved into place.
+			deletePartFile(partFile);
+			return 0;
+		}
+
+		return size;
+	}
+
+	private long validateContentRange(HttpResponse<?> response, long resumeFrom, Path partFile) throws DownloadException {
+		final String contentRange = response.headers().firstValue("Content-Range").orElse("");
+		final Matcher matcher = CONTENT_RANGE_PATTERN.matcher(contentRange);
+
+		if (!matcher.matches() || Long.parseLong(matcher.group(1)) != resumeFrom || !response.headers().firstValue("Content-Encoding").orElse("").isEmpty()) {
+			deletePartFile(partFile);
+			throw error("Unexpected partial content response (%s) when resuming from %d bytes", contentRange, resumeFrom);
+		}
+
+		return resumeFrom;
+	}
+
+	private void deletePartFile(Path partFile) throws DownloadException {
+		try {
+			Files.deleteIfExists(partFile);
+		} catch (IOException e) {
+			throw error(e, "Failed to delete partial download (%s)", partFile);
+		}
+	}
+
+	private void moveIntoPlace(Path source, Path output) throws DownloadException {
+		try {
+			try {
+				Files.move(source, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(source, output, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			throw error(e, "Failed to move downloaded file into place (%s)", output);
+		}
+	}
+
+	private MessageDigest createDigest() throws DownloadException {
+		final String algorithm = getExpectedHashAlgorithm();
+
+		try {
+			return switch (algorithm) {
+			case "sha1" -> MessageDigest.getInstance("SHA-1");
+			default -> throw error("Unsupported hash algorithm (%s)", algorithm);
+			};
+		} catch (NoSuchAlgorithmException e) {
+			throw error(e, "Failed to create digest for (%s)", algorithm);
+		}
+	}
+
+	private String getExpectedHashAlgorithm() {
+		return expectedHash.substring(0, expectedHash.indexOf(':'));
+	}
+
+	private String getExpectedHashValue() {
+		return expectedHash.substring(expectedHash.indexOf(':') + 1);
 	}
 
 	private InputStream decodeOutput(HttpResponse<InputStream> response) throws IOException {
@@ -330,9 +504,8 @@ public final class Download {
 	}
 
 	private boolean isHashValid(Path path) {
-		int i = expectedHash.indexOf(':');
-		String algorithm = expectedHash.substring(0, i);
-		String hash = expectedHash.substring(i + 1);
+		String algorithm = getExpectedHashAlgorithm();
+		String hash = getExpectedHashValue();
 
 		try {
 			String computedHash = switch (algorithm) {
@@ -390,6 +563,11 @@ public final class Download {
 
 	private void tryCleanup(Path output) {
 		try {
+			if (!resumable) {
+				// Keep the partial download so that the next attempt can resume it.
+				Files.deleteIfExists(getPartFile(output));
+			}
+
 			Files.deleteIfExists(output);
 		} catch (IOException ignored) {
 			// ignored
@@ -406,6 +584,10 @@ public final class Download {
 		return basicView.readAttributes().lastModifiedTime();
 	}
 
+	private Path getPartFile(Path output) {
+		return output.resolveSibling(output.getFileName() + ".part");
+	}
+
 	private Path getLockFile(Path output) {
 		return output.resolveSibling(output.getFileName() + ".lock");
 	}
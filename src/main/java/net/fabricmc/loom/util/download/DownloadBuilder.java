@@ -34,12 +34,16 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Locale;
 
+import org.jetbrains.annotations.Nullable;
+
 @SuppressWarnings("UnusedReturnValue")
 public class DownloadBuilder {
 	private static final Duration ONE_DAY = Duration.ofDays(1);
 
 	private final URI url;
 	private String expectedHash = null;
+	private long expectedSize = -1;
+	private boolean resumable = false;
 	private boolean useEtag = true;
 	private boolean forceDownload = false;
 	private boolean offline = false;
@@ -48,6 +52,8 @@ public class DownloadBuilder {
 	private int maxRetries = 3;
 	private boolean allowInsecureProtocol = false;
 	private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+	@Nullable
+	private DownloadTransport transport = null;
 
 	private DownloadBuilder(URI url) {
 		this.url = url;
@@ -62,6 +68,20 @@ public class DownloadBuilder {
 		return this;
 	}
 
+	public DownloadBuilder size(long size) {
+		this.expectedSize = size;
+		return this;
+	}
+
+	/**
+	 * Keep the partial file when a download fails, and resume from it on the next attempt using a HTTP range request.
+	 * Requires an expected hash to ensure that the resumed file is valid.
+	 */
+	public DownloadBuilder resumable() {
+		this.resumable = true;
+		return this;
+	}
+
 	public DownloadBuilder etag(boolean useEtag) {
 		this.useEtag = useEtag;
 		return this;
@@ -107,12 +127,24 @@ public class DownloadBuilder {
 		return this;
 	}
 
+	/**
+	 * Use a shared {@link DownloadTransport}, allowing connections to be reused across downloads.
+	 */
+	public DownloadBuilder transport(DownloadTransport transport) {
+		this.transport = transport;
+		return this;
+	}
+
 	private Download build(int downloadAttempt) {
 		if (!allowInsecureProtocol && !isSecureUrl(url)) {
 			throw new IllegalArgumentException("Cannot create download for url (%s) with insecure protocol".formatted(url.toString()));
 		}
 
-		return new Download(this.url, this.expectedHash, this.useEtag, this.forceDownload, this.offline, maxAge, progressListener, httpVersion, downloadAttempt);
+		if (resumable && expectedHash == null) {
+			throw new IllegalStateException("Cannot create resumable download for url (%s) without an expected hash".formatted(url.toString()));
+		}
+
+		return new Download(this.url, this.expectedHash, this.expectedSize, this.resumable, this.useEtag, this.forceDownload, this.offline, maxAge, progressListener, httpVersion, downloadAttempt, transport);
 	}
 
 	public void downloadPathAsync(Path path, DownloadExecutor executor) {
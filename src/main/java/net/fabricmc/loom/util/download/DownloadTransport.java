@@ -0,0 +1,93 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.download;
+
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A pooled HTTP transport that can be shared between many {@link Download}s.
+ *
+ * <p>A single {@link HttpClient} keeps its connections alive between requests, and multiplexes HTTP/2 streams over a single
+ * connection per host. The number of in-flight requests to a single host is limited to avoid overwhelming the server.
+ */
+public final class DownloadTransport {
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 16;
+
+	private final HttpClient httpClient;
+	private final int maxConnectionsPerHost;
+	private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+	public DownloadTransport(int maxConnectionsPerHost) {
+		if (maxConnectionsPerHost < 1) {
+			throw new IllegalArgumentException("maxConnectionsPerHost must be at least 1");
+		}
+
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.ALWAYS)
+				.proxy(ProxySelector.getDefault())
+				.build();
+	}
+
+	public static DownloadTransport create() {
+		return new DownloadTransport(DEFAULT_MAX_CONNECTIONS_PER_HOST);
+	}
+
+	HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * Blocks until a request to the host of the given uri may be started.
+	 * The returned permit must be closed once the response body has been fully consumed.
+	 */
+	HostPermit acquire(URI uri) throws InterruptedException {
+		final Semaphore permits = getPermits(uri);
+		permits.acquire();
+		return permits::release;
+	}
+
+	public int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	private Semaphore getPermits(URI uri) {
+		final String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "";
+		return hostPermits.computeIfAbsent(host + ":" + uri.getPort(), s -> new Semaphore(maxConnectionsPerHost, true));
+	}
+
+	@FunctionalInterface
+	interface HostPermit extends AutoCloseable {
+		@Override
+		void close();
+	}
+}
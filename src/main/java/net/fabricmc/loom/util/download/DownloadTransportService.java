@@ -0,0 +1,66 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.download;
+
+import org.gradle.api.Project;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.gradle.GradleUtils;
+
+/**
+ * Holds a single {@link DownloadTransport} for the duration of a build, shared by all projects.
+ */
+public abstract class DownloadTransportService implements BuildService<DownloadTransportService.Params> {
+	private static final String NAME = "loom:downloadTransport";
+
+	public interface Params extends BuildServiceParameters {
+		Property<Integer> getMaxConnectionsPerHost();
+	}
+
+	private final DownloadTransport transport;
+
+	public DownloadTransportService() {
+		transport = new DownloadTransport(getParameters().getMaxConnectionsPerHost().get());
+	}
+
+	public static Provider<DownloadTransportService> get(Project project) {
+		return project.getGradle().getSharedServices().registerIfAbsent(NAME, DownloadTransportService.class, spec -> {
+			spec.parameters(params -> {
+				params.getMaxConnectionsPerHost().set(
+						GradleUtils.getIntegerPropertyProvider(project, Constants.Properties.DOWNLOAD_MAX_CONNECTIONS_PER_HOST)
+								.orElse(DownloadTransport.DEFAULT_MAX_CONNECTIONS_PER_HOST)
+				);
+			});
+		});
+	}
+
+	public DownloadTransport getTransport() {
+		return transport;
+	}
+}
@@ -71,4 +71,14 @@ public final class GradleUtils {
 	public static boolean getBooleanProperty(Project project, String key) {
 		return getBooleanPropertyProvider(project, key).getOrElse(false);
 	}
+
+	public static Provider<Integer> getIntegerPropertyProvider(Project project, String key) {
+		return project.getProviders().gradleProperty(key).map(string -> {
+			try {
+				return Integer.parseInt(string);
+			} catch (final NumberFormatException ex) {
+				throw new IllegalArgumentException("Property " + key + " must be an integer", ex);
+			}
+		});
+	}
 }
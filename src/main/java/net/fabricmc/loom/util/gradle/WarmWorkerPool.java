@@ -0,0 +1,182 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.util.gradle;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.workers.internal.WorkerDaemonClientsManager;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps idle decompiler worker JVMs alive between genSources runs in the same Gradle daemon, so that later runs skip
+ * JVM startup, class loading and JIT warm up.
+ *
+ * <p>A warm worker is identified by a stable marker system property, so that Gradle reuses the idle worker for the next
+ * run with the same fork options. A worker is stopped once it has been idle for longer than the idle timeout, or when
+ * keeping it would take the memory of the warm workers above the memory cap.
+ */
+public final class WarmWorkerPool {
+	private static final Logger LOGGER = Logging.getLogger(WarmWorkerPool.class);
+	private static final String MARKER_PREFIX = "warm-";
+	private static final WarmWorkerPool INSTANCE = new WarmWorkerPool();
+
+	private final ScheduledThreadPoolExecutor expiryExecutor;
+	// In least recently used order
+	private final Map<String, WarmWorker> workers = new LinkedHashMap<>();
+
+	public WarmWorkerPool() {
+		// The thread stops once there are no pending expiries, so that it does not keep the plugin's classloader alive
+		expiryExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "Loom warm decompile worker expiry");
+			thread.setDaemon(true);
+			thread.setContextClassLoader(null);
+			return thread;
+		});
+		expiryExecutor.setKeepAliveTime(10, TimeUnit.SECONDS);
+		expiryExecutor.allowCoreThreadTimeOut(true);
+		expiryExecutor.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * @return the pool shared by every genSources task in this Gradle daemon
+	 */
+	public static WarmWorkerPool getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Marks the warm worker for the key as in use, stopping the least recently used idle workers to stay within the memory cap.
+	 *
+	 * @param key identifies the fork options of the worker, workers are only reused for the same key
+	 * @param memory the max heap of the worker in megabytes
+	 * @param memoryCap the max heap of all warm workers in megabytes
+	 * @param stopAction stops the JVMs of the worker once it is no longer kept warm
+	 * @return the marker value to give the worker JVM, or null when it cannot be kept warm within the memory cap
+	 */
+	@Nullable
+	public synchronized String acquire(String key, long memory, long memoryCap, StopAction stopAction) {
+		if (memory > memoryCap) {
+			return null;
+		}
+
+		final String jvmMarkerValue = MARKER_PREFIX + key;
+		WarmWorker worker = workers.remove(jvmMarkerValue);
+
+		if (worker == null) {
+			worker = new WarmWorker(memory);
+		} else if (worker.expiry != null) {
+			worker.expiry.cancel(false);
+			worker.expiry = null;
+		}
+
+		worker.stopAction = stopAction;
+		worker.users++;
+
+		long totalMemory = memory + workers.values().stream().mapToLong(w -> w.memory).sum();
+
+		for (Iterator<Map.Entry<String, WarmWorker>> iterator = workers.entrySet().iterator(); iterator.hasNext() && totalMemory > memoryCap; ) {
+			final Map.Entry<String, WarmWorker> entry = iterator.next();
+
+			if (entry.getValue().users > 0) {
+				continue;
+			}
+
+			LOGGER.info("Stopping warm decompile worker {} to stay within the memory cap", entry.getKey());
+			stop(entry.getKey(), entry.getValue());
+			iterator.remove();
+			totalMemory -= entry.getValue().memory;
+		}
+
+		workers.put(jvmMarkerValue, worker);
+		return jvmMarkerValue;
+	}
+
+	/**
+	 * Marks the worker as idle, it will be stopped if it is not used again within the idle timeout.
+	 */
+	public synchronized void release(String jvmMarkerValue, Duration idleTimeout) {
+		final WarmWorker worker = workers.get(jvmMarkerValue);
+
+		if (worker == null || --worker.users > 0) {
+			return;
+		}
+
+		worker.expiry = expiryExecutor.schedule(() -> expire(jvmMarkerValue, worker), idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	private synchronized void expire(String jvmMarkerValue, WarmWorker worker) {
+		if (workers.get(jvmMarkerValue) != worker || worker.users > 0) {
+			// Reused since the expiry was scheduled
+			return;
+		}
+
+		LOGGER.info("Stopping idle warm decompile worker {}", jvmMarkerValue);
+		stop(jvmMarkerValue, worker);
+		workers.remove(jvmMarkerValue);
+	}
+
+	private static void stop(String jvmMarkerValue, WarmWorker worker) {
+		if (worker.expiry != null) {
+			worker.expiry.cancel(false);
+		}
+
+		worker.stopAction.stop(jvmMarkerValue);
+	}
+
+	/**
+	 * Stops the idle worker JVMs started with the marker.
+	 */
+	public static void stopIdleJVMs(WorkerDaemonClientsManager manager, String jvmMarkerValue) {
+		// More than one JVM may have been started with the same marker when used concurrently
+		while (WorkerDaemonClientsManagerHelper.stopIdleJVM(manager, jvmMarkerValue)) {
+			LOGGER.debug("Stopped decompile worker {}", jvmMarkerValue);
+		}
+	}
+
+	@FunctionalInterface
+	public interface StopAction {
+		void stop(String jvmMarkerValue);
+	}
+
+	private static final class WarmWorker {
+		private final long memory;
+		private StopAction stopAction;
+		private int users = 0;
+		@Nullable
+		private ScheduledFuture<?> expiry;
+
+		private WarmWorker(long memory) {
+			this.memory = memory;
+		}
+	}
+}
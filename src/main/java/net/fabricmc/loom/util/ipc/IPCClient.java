@@ -30,16 +30,51 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import net.fabricmc.loom.util.IOStringConsumer;
+import net.fabricmc.loom.util.gradle.ThreadedProgressLoggerConsumer;
 
+/**
+ * Sends messages to an {@link IPCServer} in batches, see {@link IPCServer} for the framing.
+ *
+ * <p>Messages are buffered and sent by a background thread every {@link #DEFAULT_FLUSH_INTERVAL} (or the given interval), or as soon as
+ * {@link #MAX_BATCH_SIZE} messages are pending. Progress messages of the form {@code id::data} are coalesced, so only the
+ * latest message for each id is sent in a batch. Any other message (including {@link ThreadedProgressLoggerConsumer#CLOSE_LOGGERS})
+ * is always sent, and is received after every message accepted before it.
+ */
 public final class IPCClient implements IOStringConsumer, AutoCloseable {
+	public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(50);
+	static final int MAX_BATCH_SIZE = 1024;
+
 	private final Path path;
 	private final SocketChannel socketChannel;
+	// Guarded by itself, in the order to send
+	private final Map<Object, String> pending = new LinkedHashMap<>();
+	private final ScheduledExecutorService flushExecutor;
+	private volatile IOException flushException;
 
 	public IPCClient(Path path) throws IOException {
+		this(path, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	public IPCClient(Path path, Duration flushInterval) throws IOException {
 		this.path = path;
 		socketChannel = setupChannel();
+
+		flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Loom IPC client flush");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flushExecutor.scheduleWithFixedDelay(this::flushPending, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
 	}
 
 	private SocketChannel setupChannel() throws IOException {
@@ -49,19 +84,98 @@ public final class IPCClient implements IOStringConsumer, AutoCloseable {
 
 	@Override
 	public void accept(String s) throws IOException {
-		synchronized (socketChannel) {
-			ByteBuffer buf = ByteBuffer.wrap((s + "\n").getBytes(StandardCharsets.UTF_8));
+		checkFlushException();
+
+		synchronized (pending) {
+			final Object key = getCoalesceKey(s);
+			// Removed first so that the latest message moves to the end, after any message that must be received before it.
+			pending.remove(key);
+			pending.put(key, s);
+
+			if (pending.size() >= MAX_BATCH_SIZE) {
+				flush();
+			}
+		}
+	}
+
+	private static Object getCoalesceKey(String message) {
+		final int idx = message.indexOf("::");
+
+		if (idx < 0 || message.endsWith(ThreadedProgressLoggerConsumer.CLOSE_LOGGERS)) {
+			// Never coalesced
+			return new Object();
+		}
+
+		return message.substring(0, idx);
+	}
+
+	private void flushPending() {
+		try {
+			synchronized (pending) {
+				flush();
+			}
+		} catch (IOException e) {
+			flushException = e;
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void flush() throws IOException {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		final List<byte[]> messages = new ArrayList<>(pending.size());
+		int payloadLength = Integer.BYTES;
+
+		for (String message : pending.values()) {
+			final byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+			messages.add(bytes);
+			payloadLength += Integer.BYTES + bytes.length;
+		}
+
+		pending.clear();
+
+		final ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + payloadLength);
+		buf.putInt(payloadLength);
+		buf.putInt(messages.size());
+
+		for (byte[] message : messages) {
+			buf.putInt(message.length);
+			buf.put(message);
+		}
 
+		buf.flip();
+
+		synchronized (socketChannel) {
 			while (buf.hasRemaining()) {
 				socketChannel.write(buf);
 			}
 		}
 	}
 
+	private void checkFlushException() throws IOException {
+		if (flushException != null) {
+			throw new IOException("Failed to send IPC messages", flushException);
+		}
+	}
+
 	@Override
 	public void close() throws Exception {
-		synchronized (socketChannel) {
-			socketChannel.close();
+		// Not interrupted, as an interrupted write would close the channel. Shutting down cancels the periodic flush.
+		flushExecutor.shutdown();
+		flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+
+		try {
+			checkFlushException();
+
+			synchronized (pending) {
+				flush();
+			}
+		} finally {
+			synchronized (socketChannel) {
+				socketChannel.close();
+			}
 		}
 	}
 }
@@ -24,29 +24,43 @@
 
 package net.fabricmc.loom.util.ipc;
 
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.StandardProtocolFamily;
 import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.util.Scanner;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+/**
+ * Receives messages from a single {@link IPCClient}.
+ *
+ * <p>Messages are sent in frames, each frame is an int length followed by a batch: the int number of messages, and then
+ * each message as an int length followed by its UTF-8 bytes. A whole frame is read at once, and then passed to the
+ * consumer one message at a time.
+ */
 public class IPCServer implements AutoCloseable {
+	private static final long DRAIN_TIMEOUT_MILLIS = 1000;
+
 	private final ExecutorService loggerReceiverService = Executors.newSingleThreadExecutor();
 	private final Path path;
 	private final Consumer<String> consumer;
 
 	private final CountDownLatch startupLock = new CountDownLatch(1);
 
-	private boolean receivedMessage = false;
+	private volatile boolean connected = false;
+	private volatile boolean receivedMessage = false;
 
 	public IPCServer(Path path, Consumer<String> consumer) {
 		this.path = path;
@@ -70,21 +84,52 @@ public class IPCServer implements AutoCloseable {
 			startupLock.countDown();
 
 			try (SocketChannel clientChannel = serverChannel.accept();
-					Scanner scanner = new Scanner(clientChannel, StandardCharsets.UTF_8)) {
+					DataInputStream input = new DataInputStream(Channels.newInputStream(clientChannel))) {
+				connected = true;
+
 				while (!Thread.currentThread().isInterrupted()) {
-					if (scanner.hasNextLine()) {
-						receivedMessage = true;
-						this.consumer.accept(scanner.nextLine());
+					final int frameLength;
+
+					try {
+						frameLength = input.readInt();
+					} catch (EOFException e) {
+						// The client has closed the connection
+						break;
 					}
+
+					final byte[] frame = new byte[frameLength];
+					input.readFully(frame);
+					readFrame(ByteBuffer.wrap(frame));
 				}
 			}
+		} catch (AsynchronousCloseException e) {
+			// Closed by the server while waiting for a message
 		} catch (IOException e) {
 			throw new UncheckedIOException("Failed to listen for IPC messages", e);
 		}
 	}
 
+	private void readFrame(ByteBuffer frame) {
+		final int count = frame.getInt();
+
+		for (int i = 0; i < count; i++) {
+			final int length = frame.getInt();
+			final String message = new String(frame.array(), frame.position(), length, StandardCharsets.UTF_8);
+			frame.position(frame.position() + length);
+
+			receivedMessage = true;
+			this.consumer.accept(message);
+		}
+	}
+
 	@Override
 	public void close() throws InterruptedException {
+		if (connected) {
+			// Give the receiver a chance to read the messages that the client sent before disconnecting.
+			loggerReceiverService.shutdown();
+			loggerReceiverService.awaitTermination(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		}
+
 		loggerReceiverService.shutdownNow();
 		loggerReceiverService.awaitTermination(10, TimeUnit.SECONDS);
 	}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.configuration.providers.minecraft.assets.AssetValidationIndex
+
+class AssetValidationIndexTest extends Specification {
+	static final String SHA1 = "0a4d55a8d778e5022fab701977c5d840bbc486d0" // Hello World
+
+	def "round trip"() {
+		given:
+		def dir = File.createTempDir().toPath()
+		def file = dir.resolve("hello.txt")
+		def indexFile = dir.resolve("index.validation")
+		Files.writeString(file, "Hello World")
+
+		def index = AssetValidationIndex.empty()
+		index.update(file, SHA1)
+
+		when:
+		index.write(indexFile)
+		def read = AssetValidationIndex.read(indexFile)
+
+		then:
+		read.isValid(file, SHA1)
+		!read.isValid(file, "d139cccf047a749691416ce385d3f168c1e28309")
+		!read.isValid(dir.resolve("missing.txt"), SHA1)
+	}
+
+	def "modified file is invalid"() {
+		given:
+		def dir = File.createTempDir().toPath()
+		def file = dir.resolve("hello.txt")
+		Files.writeString(file, "Hello World")
+
+		def index = AssetValidationIndex.empty()
+		index.update(file, SHA1)
+
+		when:
+		Files.writeString(file, "Hello World!")
+		Files.setLastModifiedTime(file, FileTime.fromMillis(0))
+
+		then:
+		!index.isValid(file, SHA1)
+	}
+
+	def "concurrent writes are merged"() {
+		given:
+		def dir = File.createTempDir().toPath()
+		def first = dir.resolve("first.txt")
+		def second = dir.resolve("second.txt")
+		def indexFile = dir.resolve("index.validation")
+		Files.writeString(first, "Hello World")
+		Files.writeString(second, "Hello World")
+
+		def firstIndex = AssetValidationIndex.read(indexFile)
+		def secondIndex = AssetValidationIndex.read(indexFile)
+		firstIndex.update(first, SHA1)
+		secondIndex.update(second, SHA1)
+
+		when:
+		firstIndex.write(indexFile)
+		secondIndex.write(indexFile)
+		def read = AssetValidationIndex.read(indexFile)
+
+		then:
+		read.isValid(first, SHA1)
+		read.isValid(second, SHA1)
+		Files.list(dir).withCloseable { it.count() } == 3
+	}
+
+	def "corrupt index is ignored"() {
+		given:
+		def indexFile = File.createTempFile("index", ".validation").toPath()
+		Files.writeString(indexFile, "not an index")
+
+		when:
+		def index = AssetValidationIndex.read(indexFile)
+
+		then:
+		!index.isValid(indexFile, SHA1)
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.BinaryMappingCache
+import net.fabricmc.mappingio.adapter.MappingSourceNsSwitch
+import net.fabricmc.mappingio.format.Tiny2Writer
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class BinaryMappingCacheTest extends Specification {
+	static final String MAPPINGS = """tiny\t2\t0\tofficial\tintermediary\tnamed
+c\ta\tclass_1\tnet/example/Example
+\tc\tAn example class
+\tf\tI\ta\tfield_1\tcount
+\tm\t(La;)V\tb\tmethod_1\tcopy
+\t\tc\tCopies the given example
+\t\tp\t1\t\t\tother
+\t\tv\t2\t3\t0\t\t\ttemp
+c\tb\tclass_2
+"""
+
+	def "read and write cache"() {
+		given:
+		def mappings = File.createTempDir().toPath().resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		def cache = BinaryMappingCache.getCachePath(mappings)
+
+		when:
+		def uncached = BinaryMappingCache.read(mappings)
+		def cached = BinaryMappingCache.read(mappings)
+
+		then:
+		Files.exists(cache)
+		write(cached) == write(uncached)
+		cached.getClass("a").getDstName(2) == "net/example/Example"
+		cached.getClass("a").getComment() == "An example class"
+		cached.getClass("a").getMethod("b", "(La;)V").getArg(1, -1, null).getDstName(2) == "other"
+		cached.getClass("b").getDstName(2) == null
+	}
+
+	def "read into visitor"() {
+		given:
+		def mappings = File.createTempDir().toPath().resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		BinaryMappingCache.read(mappings)
+
+		when:
+		def tree = new MemoryMappingTree()
+		BinaryMappingCache.read(mappings, new MappingSourceNsSwitch(tree, "named"))
+
+		then:
+		tree.srcNamespace == "named"
+		tree.getClass("net/example/Example").getDstName(tree.getNamespaceId("official")) == "a"
+		tree.getClass("net/example/Example").getField("count", "I").getDstName(tree.getNamespaceId("intermediary")) == "field_1"
+	}
+
+	def "rewrite stale cache"() {
+		given:
+		def mappings = File.createTempDir().toPath().resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		BinaryMappingCache.read(mappings)
+
+		when:
+		Files.writeString(mappings, MAPPINGS.replace("net/example/Example", "net/example/Renamed"))
+		Files.setLastModifiedTime(mappings, FileTime.fromMillis(System.currentTimeMillis() + 10000))
+		def tree = BinaryMappingCache.read(mappings)
+
+		then:
+		tree.getClass("a").getDstName(2) == "net/example/Renamed"
+		BinaryMappingCache.read(mappings).getClass("a").getDstName(2) == "net/example/Renamed"
+	}
+
+	private static String write(MemoryMappingTree tree) {
+		def writer = new StringWriter()
+		tree.accept(new Tiny2Writer(writer, false))
+		return writer.toString()
+	}
+}
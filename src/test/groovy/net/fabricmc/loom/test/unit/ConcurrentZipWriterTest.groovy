@@ -0,0 +1,116 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Path
+import java.util.concurrent.Executors
+import java.util.zip.ZipEntry
+import java.util.zip.ZipException
+import java.util.zip.ZipFile
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.decompilers.LineMapWriter
+import net.fabricmc.loom.util.ConcurrentZipWriter
+
+class ConcurrentZipWriterTest extends Specification {
+	Path dir = File.createTempDir().toPath()
+
+	def "write entries from many threads"() {
+		given:
+		def zip = dir.resolve("test.jar")
+		def executor = Executors.newFixedThreadPool(8)
+
+		when:
+		new ConcurrentZipWriter(zip).withCloseable { writer ->
+			writer.putDirectory("test")
+
+			(0..<500).collect { i ->
+				executor.submit {
+					writer.putEntry("test/Class${i}.java", ("class Class${i} { }\n" * i).bytes)
+				}
+			}*.get()
+		}
+		executor.shutdown()
+
+		then:
+		new ZipFile(zip.toFile()).withCloseable { zipFile ->
+			assert zipFile.size() == 501
+			assert zipFile.getEntry("test/").directory
+			assert zipFile.getEntry("test/Class0.java").method == ZipEntry.STORED
+			assert zipFile.getEntry("test/Class100.java").method == ZipEntry.DEFLATED
+			assert zipFile.getInputStream(zipFile.getEntry("test/Class100.java")).text == "class Class100 { }\n" * 100
+			true
+		}
+	}
+
+	def "zip64 is used for more than 65535 entries"() {
+		given:
+		def zip = dir.resolve("test.jar")
+
+		when:
+		new ConcurrentZipWriter(zip).withCloseable { writer ->
+			for (int i = 0; i < 70000; i++) {
+				writer.putEntry("test/Class${i}.java", "class Class${i} { }\n".bytes)
+			}
+		}
+
+		then:
+		new ZipFile(zip.toFile()).withCloseable { zipFile ->
+			assert zipFile.size() == 70000
+			assert zipFile.getInputStream(zipFile.getEntry("test/Class69999.java")).text == "class Class69999 { }\n"
+			true
+		}
+	}
+
+	def "duplicate entry"() {
+		given:
+		def writer = new ConcurrentZipWriter(dir.resolve("test.jar"))
+		writer.putEntry("test.txt", "test".bytes)
+
+		when:
+		writer.putEntry("test.txt", "test".bytes)
+
+		then:
+		thrown ZipException
+
+		cleanup:
+		writer.close()
+	}
+
+	def "write line map"() {
+		given:
+		def lineMap = dir.resolve("test.lmap")
+		def writer = new LineMapWriter()
+		writer.add("b/B", [3, 4, 1, 2] as int[])
+		writer.add("a/A", [5, 9] as int[])
+
+		when:
+		writer.write(lineMap)
+
+		then:
+		lineMap.text == "a/A\t5\t9\n\t5\t9\nb/B\t3\t4\n\t3\t4\n\t1\t2\n"
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.ContentAddressedStore
+
+class ContentAddressedStoreTest extends Specification {
+	static final String SHA1 = "0a4d55a8d778e5022fab701977c5d840bbc486d0" // Hello World
+
+	def "materialise"() {
+		given:
+		def store = new ContentAddressedStore(File.createTempDir().toPath())
+		def object = store.getPath(SHA1)
+		Files.createDirectories(object.parent)
+		Files.writeString(object, "Hello World")
+
+		def target = File.createTempDir().toPath().resolve("sub/dir/hello.txt")
+
+		when:
+		store.materialise(SHA1, target)
+		store.materialise(SHA1, target)
+
+		then:
+		object.parent.fileName.toString() == "0a"
+		Files.readString(target) == "Hello World"
+	}
+
+	def "materialise replaces modified file"() {
+		given:
+		def store = new ContentAddressedStore(File.createTempDir().toPath())
+		def object = store.getPath(SHA1)
+		Files.createDirectories(object.parent)
+		Files.writeString(object, "Hello World")
+
+		def target = File.createTempDir().toPath().resolve("hello.txt")
+		Files.writeString(target, "Something else")
+
+		when:
+		store.materialise(SHA1, target)
+
+		then:
+		Files.readString(target) == "Hello World"
+	}
+
+	def "materialise with marker"() {
+		given:
+		def store = new ContentAddressedStore(File.createTempDir().toPath())
+		def object = store.getPath(SHA1)
+		Files.createDirectories(object.parent)
+		Files.writeString(object, "Hello World")
+
+		def target = File.createTempDir().toPath().resolve("hello.txt")
+
+		when:
+		store.materialise(SHA1, target, "processed:" + SHA1)
+		store.materialise(SHA1, target, "processed:" + SHA1)
+
+		then:
+		Files.readString(target) == "Hello World"
+	}
+
+	def "delete unused"() {
+		given:
+		def store = new ContentAddressedStore(File.createTempDir().toPath())
+		def used = store.getPath(SHA1)
+		def unused = store.getPath("1" + SHA1.substring(1))
+		def recent = store.getPath("2" + SHA1.substring(1))
+
+		[used, unused, recent].each {
+			Files.createDirectories(it.parent)
+			Files.writeString(it, "Hello World")
+		}
+
+		def old = FileTime.from(Instant.now().minus(Duration.ofDays(10)))
+		Files.setLastModifiedTime(used, old)
+		Files.setLastModifiedTime(unused, old)
+		store.markUsed(SHA1)
+
+		when:
+		store.deleteUnused(Duration.ofDays(7))
+
+		then:
+		Files.exists(used)
+		Files.notExists(unused)
+		Files.exists(recent)
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.decompilers.DecompileMappingsCache
+
+class DecompileMappingsCacheTest extends Specification {
+	Path dir = File.createTempDir().toPath()
+	Path root = dir.resolve("cache")
+	Path inputMappings = dir.resolve("mappings.tiny")
+	DecompileMappingsCache cache = new DecompileMappingsCache(root, Duration.ofDays(7))
+
+	def setup() {
+		inputMappings.text = "input"
+	}
+
+	def "processed mappings are written once"() {
+		given:
+		int writes = 0
+		def writer = { Path output ->
+			writes++
+			output.text = "processed"
+			return true
+		} as DecompileMappingsCache.MappingsWriter
+
+		when:
+		def first = cache.get("key", inputMappings, writer)
+		def second = cache.get("key", inputMappings, writer)
+
+		then:
+		writes == 1
+		first == root.resolve("key.tiny")
+		second == first
+		first.text == "processed"
+		// Only the mappings and the used marker, the temp file is moved into place
+		Files.list(root).withCloseable { it.map { it.fileName.toString() }.toList() } as Set == ["key.tiny", "key.used"] as Set
+	}
+
+	def "unchanged mappings use the input mappings"() {
+		given:
+		int writes = 0
+		def writer = { Path output ->
+			writes++
+			return false
+		} as DecompileMappingsCache.MappingsWriter
+
+		when:
+		def first = cache.get("key", inputMappings, writer)
+		def second = cache.get("key", inputMappings, writer)
+
+		then:
+		writes == 1
+		first == inputMappings
+		second == inputMappings
+		Files.exists(root.resolve("key.unchanged"))
+		!Files.exists(root.resolve("key.tiny"))
+	}
+
+	def "failed write is not cached"() {
+		when:
+		cache.get("key", inputMappings) { Path output ->
+			output.text = "partial"
+			throw new IOException("Failed")
+		}
+
+		then:
+		thrown IOException
+		Files.list(root).withCloseable { it.map { it.fileName.toString() }.toList() } == ["key.used"]
+	}
+
+	def "unused keys are deleted"() {
+		given:
+		Files.createDirectories(root)
+		def old = Instant.now().minus(Duration.ofDays(8))
+		def oldFiles = ["old.tiny", "old.tiny.bin", "old.tiny.javadoc", "old.used", "old123.tmp"]
+		def recentFiles = ["recent.unchanged", "recent.used"]
+		// The current key is kept even when its files are old, as are its temp files
+		def currentFiles = ["key.tiny", "key.tiny.bin", "key123.tmp"]
+
+		(oldFiles + recentFiles + currentFiles).each { root.resolve(it).text = "" }
+		(oldFiles + currentFiles).each { Files.setLastModifiedTime(root.resolve(it), FileTime.from(old)) }
+		// A recent use of a key keeps all of its files, even when the mappings themselves are old
+		Files.setLastModifiedTime(root.resolve("recent.unchanged"), FileTime.from(old))
+
+		when:
+		cache.get("key", inputMappings) { throw new IllegalStateException("Should be cached") }
+
+		then:
+		Files.list(root).withCloseable { it.map { it.fileName.toString() }.toList() } as Set == (recentFiles + currentFiles + ["key.used"]) as Set
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.decompilers.DecompiledSourcesCache
+
+class DecompiledSourcesCacheTest extends Specification {
+	Path dir = File.createTempDir().toPath()
+	DecompiledSourcesCache cache = new DecompiledSourcesCache(dir.resolve("cache"))
+
+	def "decompile once and restore"() {
+		given:
+		def key = DecompiledSourcesCache.getKey(["input", "mappings", "decompiler"])
+		def sources = dir.resolve("a-sources.jar")
+		def lineMap = dir.resolve("a-sources.lmap")
+		def otherSources = dir.resolve("b-sources.jar")
+		def otherLineMap = dir.resolve("b-sources.lmap")
+
+		when:
+		def restored = cache.restoreOrDecompile(key, sources, lineMap) {
+			sources.text = "sources"
+			lineMap.text = "linemap"
+		}
+		def otherRestored = cache.restoreOrDecompile(key, otherSources, otherLineMap) {
+			throw new IllegalStateException("Should have been restored")
+		}
+
+		then:
+		!restored
+		otherRestored
+		otherSources.text == "sources"
+		otherLineMap.text == "linemap"
+	}
+
+	def "failed decompile is not cached"() {
+		given:
+		def key = DecompiledSourcesCache.getKey(["input"])
+		def sources = dir.resolve("sources.jar")
+		def lineMap = dir.resolve("sources.lmap")
+
+		when:
+		cache.restoreOrDecompile(key, sources, lineMap) {
+			throw new IOException("Failed")
+		}
+
+		then:
+		thrown IOException
+
+		when:
+		def restored = cache.restoreOrDecompile(key, sources, lineMap) {
+			sources.text = "sources"
+		}
+
+		then:
+		!restored
+		sources.text == "sources"
+	}
+
+	def "least recently used entries are evicted"() {
+		given:
+		def cache = new DecompiledSourcesCache(dir.resolve("cache"), 2)
+		def sources = dir.resolve("sources.jar")
+		def lineMap = dir.resolve("sources.lmap")
+		def decompile = { sources.text = "sources" } as DecompiledSourcesCache.Decompilation
+
+		def now = Instant.now()
+
+		when:
+		cache.restoreOrDecompile("a", sources, lineMap, decompile)
+		Files.setLastModifiedTime(dir.resolve("cache/a"), FileTime.from(now.minus(Duration.ofHours(3))))
+		cache.restoreOrDecompile("b", sources, lineMap, decompile)
+		Files.setLastModifiedTime(dir.resolve("cache/b"), FileTime.from(now.minus(Duration.ofHours(2))))
+		// Restoring marks a as used now, so b becomes the least recently used
+		cache.restoreOrDecompile("a", sources, lineMap, decompile)
+		cache.restoreOrDecompile("c", sources, lineMap, decompile)
+
+		then:
+		Files.exists(dir.resolve("cache/a"))
+		!Files.exists(dir.resolve("cache/b"))
+		!Files.exists(dir.resolve("cache/b.lock"))
+		Files.exists(dir.resolve("cache/c"))
+	}
+
+	def "concurrent requests wait for a single decompile"() {
+		given:
+		def key = DecompiledSourcesCache.getKey(["input"])
+		def decompiles = new AtomicInteger()
+		def executor = Executors.newFixedThreadPool(4)
+
+		when:
+		def results = (0..<4).collect { i ->
+			executor.submit {
+				def sources = dir.resolve("${i}-sources.jar")
+
+				cache.restoreOrDecompile(key, sources, dir.resolve("${i}-sources.lmap")) {
+					decompiles.incrementAndGet()
+					Thread.sleep(200)
+					sources.text = "sources"
+				}
+
+				sources.text
+			}
+		}*.get()
+		executor.shutdown()
+
+		then:
+		decompiles.get() == 1
+		results == ["sources"] * 4
+	}
+}
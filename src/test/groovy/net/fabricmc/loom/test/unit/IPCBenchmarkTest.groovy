@@ -0,0 +1,91 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.util.concurrent.Executors
+import java.util.function.Consumer
+
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import net.fabricmc.loom.util.ipc.IPCClient
+import net.fabricmc.loom.util.ipc.IPCServer
+
+/**
+ * Measures the throughput of decompiler progress messages, as sent by many decompiler threads.
+ */
+@Timeout(60)
+class IPCBenchmarkTest extends Specification {
+	static final int THREADS = 8
+	static final int MESSAGES_PER_THREAD = 100_000
+
+	def "ipc benchmark"() {
+		given:
+		def path = Files.createTempFile("loom", "ipc")
+		Files.deleteIfExists(path)
+
+		def received = [].asSynchronized()
+		long lastReceived = 0
+		Consumer<String> consumer = { str ->
+			received << str
+			lastReceived = System.nanoTime()
+		}
+
+		def executor = Executors.newFixedThreadPool(THREADS)
+
+		when:
+		def ipcServer = new IPCServer(path, consumer)
+		long start = System.nanoTime()
+
+		new IPCClient(path).withCloseable { client ->
+			(0..<THREADS).collect { thread ->
+				executor.submit {
+					for (int i = 0; i < MESSAGES_PER_THREAD; i++) {
+						client.accept("${thread}::Decompiling class ${i}")
+					}
+
+					client.accept("${thread}::Done")
+				}
+			}*.get()
+
+			client.accept("0::LOOM_CLOSE_LOGGERS")
+		}
+
+		long sent = System.nanoTime()
+
+		while (received.isEmpty() || received.last() != "0::LOOM_CLOSE_LOGGERS") { }
+		ipcServer.close()
+		executor.shutdown()
+
+		def messages = THREADS * MESSAGES_PER_THREAD
+		println "Sent ${messages} messages in ${(sent - start) / 1_000_000}ms (${(long) (messages / ((sent - start) / 1_000_000_000))} messages/s)"
+		println "Received ${received.size()} messages, ${(lastReceived - start) / 1_000_000}ms end to end"
+
+		then:
+		// The latest progress of every thread is always received
+		(0..<THREADS).every { thread -> received.contains("${thread}::Done".toString()) }
+	}
+}
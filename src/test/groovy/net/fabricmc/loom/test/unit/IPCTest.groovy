@@ -25,6 +25,7 @@
 package net.fabricmc.loom.test.unit
 
 import java.nio.file.Files
+import java.time.Duration
 import java.util.function.Consumer
 
 import spock.lang.Specification
@@ -63,4 +64,31 @@ class IPCTest extends Specification {
 		received[0] == "Test"
 		received[1] == "Hello"
 	}
+
+	def "progress messages are coalesced"() {
+		given:
+		def path = Files.createTempFile("loom", "ipc")
+		Files.deleteIfExists(path)
+
+		def received = [].asSynchronized()
+		Consumer<String> consumer = { str -> received << str }
+
+		when:
+		def ipcServer = new IPCServer(path, consumer)
+
+		// Only flushed on close, so that every message is in the same batch
+		new IPCClient(path, Duration.ofHours(1)).withCloseable { client ->
+			client.accept("1::a")
+			client.accept("2::a")
+			client.accept("1::b")
+			client.accept("1::LOOM_CLOSE_LOGGERS")
+			client.accept("2::b")
+		}
+
+		while (received.isEmpty() || received.last() != "2::b") { }
+		ipcServer.close()
+
+		then:
+		received == ["2::a", "1::b", "1::LOOM_CLOSE_LOGGERS", "2::b"]
+	}
 }
@@ -0,0 +1,91 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Path
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.decompilers.IncrementalDecompilation
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+import static net.fabricmc.loom.test.util.ZipTestUtils.readZip
+
+class IncrementalDecompilationTest extends Specification {
+	Path dir = File.createTempDir().toPath()
+	Path index = dir.resolve("sources.index")
+	Path inputJar = dir.resolve("input.jar")
+	Path sourcesJar = dir.resolve("sources.jar")
+	Path lineMap = dir.resolve("sources.lmap")
+
+	def setup() {
+		createZip(inputJar, ["a/A.class": "A", "a/A\$1.class": "A\$1", "a/B.class": "B", "a/C.class": "C"])
+		createZip(sourcesJar, ["a/A.java": "A source", "a/B.java": "B source", "a/C.java": "C source"])
+		lineMap.text = "a/A\t5\t6\n\t1\t2\n\na/B\t5\t6\n\t1\t3\n\na/C\t1\t1\n\t1\t1\n"
+
+		IncrementalDecompilation.create(index, inputJar, ["key"], true).writeIndex(inputJar)
+	}
+
+	def "decompile changed groups"() {
+		given:
+		createZip(inputJar, ["a/A.class": "A", "a/A\$1.class": "A\$1 changed", "a/B.class": "B"])
+		def incremental = IncrementalDecompilation.create(index, inputJar, ["key"], true)
+
+		def partialSources = dir.resolve("partial-sources.jar")
+		def partialLineMap = dir.resolve("partial.lmap")
+		createZip(partialSources, ["a/A.java": "A new source"])
+		partialLineMap.text = "a/A\t7\t8\n\t1\t9\n"
+
+		when:
+		incremental.spliceSources(sourcesJar, partialSources)
+		incremental.mergeLineMaps(lineMap, partialLineMap)
+
+		then:
+		incremental.incremental
+		incremental.changedGroups == ["a/A"] as Set
+		readZip(sourcesJar) == ["a/A.java": "A new source", "a/B.java": "B source"]
+		lineMap.text == "a/B\t5\t6\n\t1\t3\na/A\t7\t8\n\t1\t9\n"
+		incremental.getClassesToLineMap(inputJar) == ["a/A", "a/A\$1"] as Set
+	}
+
+	def "unchanged"() {
+		when:
+		def incremental = IncrementalDecompilation.create(index, inputJar, ["key"], true)
+
+		then:
+		incremental.incremental
+		!incremental.hasChanges()
+		incremental.getClassesToLineMap(inputJar).isEmpty()
+	}
+
+	def "key change requires full decompile"() {
+		when:
+		def incremental = IncrementalDecompilation.create(index, inputJar, ["other key"], true)
+
+		then:
+		!incremental.incremental
+		incremental.getClassesToLineMap(inputJar) == null
+	}
+}
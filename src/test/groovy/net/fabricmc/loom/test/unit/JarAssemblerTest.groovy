@@ -0,0 +1,115 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.util.zip.ZipFile
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.JarAssembler
+import net.fabricmc.loom.util.ZipUtils
+
+class JarAssemblerTest extends Specification {
+	def "copy non class files and transform"() {
+		given:
+		def dir = File.createTempDir()
+		def input = File.createTempFile("loom-zip-test", ".zip").toPath()
+		def output = File.createTempFile("loom-zip-test", ".zip").toPath()
+		new File(dir, "b/test.txt").with {
+			parentFile.mkdirs()
+			text = "This is a test of transforming"
+		}
+		new File(dir, "a.class").bytes = [0xCA, 0xFE] as byte[]
+		ZipUtils.pack(dir.toPath(), input)
+
+		when:
+		def jar = new JarAssembler()
+		jar.addNonClassFiles(input)
+		jar.accept("a/Test", [1, 2, 3] as byte[])
+		def transformed = jar.transform("b/test.txt") { new String(it, StandardCharsets.UTF_8).toUpperCase().getBytes(StandardCharsets.UTF_8) }
+		def missing = jar.transform("nope.txt") { it }
+		jar.write(output, true, false)
+
+		then:
+		transformed
+		!missing
+		!ZipUtils.contains(output, "a.class")
+		ZipUtils.unpack(output, "a/Test.class") == [1, 2, 3] as byte[]
+		new String(ZipUtils.unpack(output, "b/test.txt"), StandardCharsets.UTF_8) == "THIS IS A TEST OF TRANSFORMING"
+	}
+
+	def "reproducible output"() {
+		given:
+		def output = File.createTempFile("loom-zip-test", ".zip").toPath()
+
+		when:
+		def jar = new JarAssembler()
+		jar.add("z/last.txt", "last".getBytes(StandardCharsets.UTF_8))
+		jar.add("a/first.txt", "first".getBytes(StandardCharsets.UTF_8))
+		jar.write(output, true, false)
+
+		def zipFile = new ZipFile(output.toFile())
+		def entries = zipFile.entries().collect { it }
+		zipFile.close()
+
+		then:
+		entries*.name == [
+			"a/",
+			"a/first.txt",
+			"z/",
+			"z/last.txt"
+		]
+		entries.every { it.time == entries[0].time }
+	}
+
+	def "replace missing entry"() {
+		when:
+		new JarAssembler().replace("nope.txt", new byte[0])
+
+		then:
+		thrown NoSuchFileException
+	}
+
+	def "transform json"() {
+		given:
+		def output = File.createTempFile("loom-zip-test", ".zip").toPath()
+
+		when:
+		def jar = new JarAssembler()
+		jar.add("mixins.json", '{"package": "test"}'.getBytes(StandardCharsets.UTF_8))
+		jar.transformJson(Map.class, "mixins.json") {
+			it.refmap = "test-refmap.json"
+			return it
+		}
+		jar.write(output, false, true)
+
+		then:
+		ZipUtils.unpackGson(output, "mixins.json", Map.class).refmap == "test-refmap.json"
+		Files.exists(output)
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.decompilers.JavadocIndex
+
+class JavadocIndexTest extends Specification {
+	static final String MAPPINGS = """tiny\t2\t0\tintermediary\tnamed
+c\tclass_1\tnet/example/Example
+\tc\tAn example class
+\tf\tI\tfield_1\tcount
+\t\tc\tThe count
+\tf\tJ\tfield_2\tundocumented
+\tm\t(Lclass_1;I)V\tmethod_1\tcopy
+\t\tc\tCopies the given example
+\t\tp\t1\t\tother
+\t\t\tc\tThe example to copy
+\t\tp\t2\t\tamount
+\tm\t()V\tmethod_2\tparamsOnly
+\t\tp\t0\t\tfirst
+\t\t\tc\tThe first param
+c\tclass_2\tnet/example/Empty
+"""
+
+	def "read javadoc"() {
+		given:
+		def mappings = File.createTempDir().toPath().resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+
+		when:
+		def index = JavadocIndex.open(mappings)
+
+		then:
+		Files.exists(JavadocIndex.getPath(mappings))
+		index.getClassDoc("net/example/Example") == "An example class"
+		index.getClassDoc("net/example/Empty") == null
+		index.getClassDoc("net/example/Missing") == null
+		index.getFieldDoc("net/example/Example", "count", "I") == "The count"
+		index.getFieldDoc("net/example/Example", "count", "J") == null
+		index.getFieldDoc("net/example/Example", "undocumented", "J") == null
+		index.getMethodDoc("net/example/Example", "copy", "(Lnet/example/Example;I)V") == "Copies the given example\n\n@param other The example to copy"
+		index.getMethodDoc("net/example/Example", "paramsOnly", "()V") == "@param first The first param"
+	}
+
+	def "rewrite stale index"() {
+		given:
+		def mappings = File.createTempDir().toPath().resolve("mappings.tiny")
+		Files.writeString(mappings, MAPPINGS)
+		JavadocIndex.open(mappings)
+
+		when:
+		Files.writeString(mappings, MAPPINGS.replace("An example class", "A changed class"))
+		Files.setLastModifiedTime(mappings, FileTime.fromMillis(System.currentTimeMillis() + 10000))
+		def index = JavadocIndex.open(mappings)
+
+		then:
+		index.getClassDoc("net/example/Example") == "A changed class"
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+import net.fabricmc.loom.decompilers.LineNumberRemapper
+import net.fabricmc.loom.util.Constants
+
+class LineNumberRemapperTest extends Specification {
+	static final List<Integer> LINES = [5, 7, 10, 15, 17, 20, 25]
+
+	Path dir = File.createTempDir().toPath()
+	Path inputJar = dir.resolve("input.jar")
+	Path outputJar = dir.resolve("output.jar")
+	LineNumberRemapper remapper = new LineNumberRemapper()
+
+	def setup() {
+		def lineMap = dir.resolve("sources.lmap").toFile()
+		// Line 10 is mapped twice, the last mapping wins
+		lineMap.text = "test/Foo\t20\t30\n\t5\t10\n\t10\t15\n\t10\t16\n\t15\t25\n"
+		remapper.readMappings(lineMap)
+
+		writeJar(inputJar, [
+				"test/Foo.class": createClass("test/Foo", LINES),
+				"test/Foo\$Inner.class": createClass("test/Foo\$Inner", LINES),
+				"test/Bar.class": createClass("test/Bar", LINES),
+				"test/resource.txt": "resource".bytes
+		])
+	}
+
+	def "remap line numbers"() {
+		when:
+		remapper.processJar(null, inputJar, outputJar)
+
+		then:
+		// A line between mapped lines takes the next mapped line, a line past the last mapped line or maxLine takes maxLineDest
+		readLines(outputJar, "test/Foo.class") == [10, 16, 16, 25, 30, 30, 30]
+		// Inner classes use the line map of their outer class
+		readLines(outputJar, "test/Foo\$Inner.class") == [10, 16, 16, 25, 30, 30, 30]
+		// Classes without a line map are unchanged
+		readLines(outputJar, "test/Bar.class") == LINES
+		readEntry(outputJar, "test/resource.txt") == "resource".bytes
+	}
+
+	def "remap only the filtered classes"() {
+		when:
+		remapper.processJar(null, inputJar, outputJar, { it == "test/Foo\$Inner" })
+
+		then:
+		readLines(outputJar, "test/Foo.class") == LINES
+		readLines(outputJar, "test/Foo\$Inner.class") == [10, 16, 16, 25, 30, 30, 30]
+	}
+
+	private static byte[] createClass(String name, List<Integer> lines) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+
+		def method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "test", "()V", null, null)
+		method.visitCode()
+
+		for (int line : lines) {
+			def label = new Label()
+			method.visitLabel(label)
+			method.visitLineNumber(line, label)
+			method.visitInsn(Opcodes.NOP)
+		}
+
+		method.visitInsn(Opcodes.RETURN)
+		method.visitMaxs(0, 0)
+		method.visitEnd()
+		writer.visitEnd()
+
+		return writer.toByteArray()
+	}
+
+	private static void writeJar(Path jar, Map<String, byte[]> entries) {
+		new ZipOutputStream(Files.newOutputStream(jar)).withCloseable { zos ->
+			entries.each { name, bytes ->
+				zos.putNextEntry(new ZipEntry(name))
+				zos.write(bytes)
+				zos.closeEntry()
+			}
+		}
+	}
+
+	private static byte[] readEntry(Path jar, String name) {
+		new ZipFile(jar.toFile()).withCloseable { zip ->
+			zip.getInputStream(zip.getEntry(name)).readAllBytes()
+		}
+	}
+
+	private static List<Integer> readLines(Path jar, String name) {
+		def lines = []
+
+		new ClassReader(readEntry(jar, name)).accept(new ClassVisitor(Constants.ASM_VERSION) {
+			@Override
+			MethodVisitor visitMethod(int access, String methodName, String descriptor, String signature, String[] exceptions) {
+				return new MethodVisitor(Constants.ASM_VERSION) {
+					@Override
+					void visitLineNumber(int line, Label start) {
+						lines << line
+					}
+				}
+			}
+		}, 0)
+
+		return lines
+	}
+}
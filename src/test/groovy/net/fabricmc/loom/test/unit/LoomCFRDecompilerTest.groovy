@@ -0,0 +1,81 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.util.regex.Pattern
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.decompilers.cfr.CFRSinkFactory
+import net.fabricmc.loom.decompilers.cfr.LoomCFRDecompiler
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+
+class LoomCFRDecompilerTest extends Specification {
+	def "group inner classes with their outer class"() {
+		given:
+		def jar = File.createTempDir().toPath().resolve("input.jar")
+		createZip(jar, [
+			"a/A.class": "1234",
+			"a/A\$1.class": "12",
+			"a/A\$B\$C.class": "1",
+			"b/B.class": "123",
+			"b/data.json": "{}"
+		])
+
+		when:
+		def sizes = LoomCFRDecompiler.getClassGroupSizes(jar)
+
+		then:
+		sizes == ["a.A": 7L, "b.B": 3L]
+	}
+
+	def "jar filter matches a group and its inner classes"() {
+		given:
+		// CFR treats the filter as a substring pattern
+		def pattern = Pattern.compile("^.*" + LoomCFRDecompiler.getJarFilter(["net.a.Foo", "net.b.Bar"]) + ".*\$")
+
+		expect:
+		pattern.matcher(name).matches() == matches
+
+		where:
+		name                  | matches
+		"net.a.Foo"           | true
+		"net.a.Foo\$1"        | true
+		"net.a.Foo\$Inner\$2" | true
+		"net.b.Bar"           | true
+		"net.a.FooBar"        | false
+		"x.net.a.Foo"         | false
+		"net.a.Fo"            | false
+	}
+
+	def "sort line map keeping the last mapping of a line"() {
+		when:
+		def lines = CFRSinkFactory.sortLines([5, 50, 3, 30, 5, 51, 1, 10, 3, 31] as int[])
+
+		then:
+		lines == [1, 10, 3, 31, 5, 51] as int[]
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.file.Path
+import java.util.zip.ZipFile
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.decompilers.ShardedDecompilation
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+import static net.fabricmc.loom.test.util.ZipTestUtils.readZip
+
+class ShardedDecompilationTest extends Specification {
+	Path dir = File.createTempDir().toPath()
+	Path inputJar = dir.resolve("input.jar")
+
+	def "partition packages"() {
+		when:
+		def partitions = ShardedDecompilation.partition(["a": 10L, "b": 6L, "c": 5L, "d": 1L], 2)
+
+		then:
+		partitions == [["a", "d"], ["b", "c"]]
+	}
+
+	def "partition with more shards than packages"() {
+		when:
+		def partitions = ShardedDecompilation.partition(["a": 10L], 4)
+
+		then:
+		partitions == [["a"]]
+	}
+
+	def "split by package"() {
+		given:
+		createZip(inputJar, [
+				"a/A.class": "A",
+				"a/A\$1.class": "A\$1",
+				"b/B.class": "B",
+				"b/c/C.class": "C",
+				"assets/test.txt": "resource"
+		])
+
+		when:
+		def shards = ShardedDecompilation.split(inputJar, null, 3, dir)
+
+		then:
+		shards.size() == 3
+		shards.collect { readZip(it.inputJar()).keySet() + readZip(it.libraryJar()).keySet() }.every {
+			it == ["a/A.class", "a/A\$1.class", "b/B.class", "b/c/C.class", "assets/test.txt"] as Set
+		}
+		shards.collect { readZip(it.inputJar()).keySet().findAll { it.endsWith(".class") } } as Set == [
+				["a/A.class", "a/A\$1.class"] as Set,
+				["b/B.class"] as Set,
+				["b/c/C.class"] as Set
+		] as Set
+		readZip(shards[0].inputJar()).containsKey("assets/test.txt")
+	}
+
+	def "single shard decompiles the input jar"() {
+		given:
+		createZip(inputJar, ["a/A.class": "A", "b/B.class": "B"])
+
+		when:
+		def shards = ShardedDecompilation.split(inputJar, null, 1, dir)
+
+		then:
+		shards.size() == 1
+		shards[0].inputJar() == inputJar
+		shards[0].libraryJar() == null
+	}
+
+	def "split only the selected groups"() {
+		given:
+		createZip(inputJar, ["a/A.class": "A", "a/A\$1.class": "A\$1", "b/B.class": "B"])
+
+		when:
+		def shards = ShardedDecompilation.split(inputJar, ["a/A"] as Set, 2, dir)
+
+		then:
+		shards.size() == 1
+		readZip(shards[0].inputJar()).keySet() == ["a/A.class", "a/A\$1.class"] as Set
+		readZip(shards[0].libraryJar()).keySet() == ["b/B.class"] as Set
+	}
+
+	def "merge sources and line maps"() {
+		given:
+		createZip(inputJar, ["a/A.class": "A", "b/B.class": "B"])
+		def shards = ShardedDecompilation.split(inputJar, null, 2, dir)
+
+		createZip(shards[0].sourcesJar(), ["b/B.java": "B source"])
+		shards[0].lineMap().text = "b/B\t5\t6\n\t1\t3\n"
+		createZip(shards[1].sourcesJar(), ["a/A.java": "A source"])
+		shards[1].lineMap().text = "a/A\t5\t6\n\t1\t2\n\t3\t4\n"
+
+		def sources = dir.resolve("sources.jar")
+		def lineMap = dir.resolve("sources.lmap")
+
+		when:
+		ShardedDecompilation.mergeSources(shards, sources)
+		def merged = ShardedDecompilation.mergeLineMaps(shards, lineMap)
+
+		then:
+		new ZipFile(sources.toFile()).withCloseable { zip -> zip.entries().toList()*.name } == ["a/A.java", "b/B.java"]
+		merged
+		lineMap.text == "a/A\t5\t6\n\t1\t2\n\t3\t4\nb/B\t5\t6\n\t1\t3\n"
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.time.Duration
+
+import spock.lang.Specification
+import spock.lang.Timeout
+import spock.util.concurrent.PollingConditions
+
+import net.fabricmc.loom.util.gradle.WarmWorkerPool
+
+@Timeout(20)
+class WarmWorkerPoolTest extends Specification {
+	WarmWorkerPool pool = new WarmWorkerPool()
+	List<String> stopped = [].asSynchronized()
+	WarmWorkerPool.StopAction stopAction = { stopped << it } as WarmWorkerPool.StopAction
+
+	def "least recently used idle workers are stopped to stay within the memory cap"() {
+		given:
+		def a = pool.acquire("a", 1024, 3072, stopAction)
+		def b = pool.acquire("b", 1024, 3072, stopAction)
+		def c = pool.acquire("c", 1024, 3072, stopAction)
+		[a, b, c].each { pool.release(it, Duration.ofHours(1)) }
+		// Reusing a makes b the least recently used
+		pool.release(pool.acquire("a", 1024, 3072, stopAction), Duration.ofHours(1))
+
+		when:
+		def d = pool.acquire("d", 2048, 3072, stopAction)
+
+		then:
+		d == "warm-d"
+		stopped == ["warm-b", "warm-c"]
+	}
+
+	def "workers in use are not stopped for the memory cap"() {
+		given:
+		def a = pool.acquire("a", 2048, 3072, stopAction)
+
+		when:
+		def b = pool.acquire("b", 2048, 3072, stopAction)
+		pool.release(a, Duration.ofHours(1))
+		pool.release(b, Duration.ofHours(1))
+
+		then:
+		b == "warm-b"
+		stopped.isEmpty()
+	}
+
+	def "worker larger than the memory cap is not kept warm"() {
+		expect:
+		pool.acquire("a", 4096, 3072, stopAction) == null
+	}
+
+	def "idle worker is stopped after the idle timeout"() {
+		given:
+		def a = pool.acquire("a", 1024, 3072, stopAction)
+
+		when:
+		pool.release(a, Duration.ofMillis(10))
+
+		then:
+		new PollingConditions(timeout: 5).eventually {
+			assert stopped == ["warm-a"]
+		}
+	}
+
+	def "reacquired worker is not stopped by its earlier expiry"() {
+		given:
+		def a = pool.acquire("a", 1024, 3072, stopAction)
+		pool.release(a, Duration.ofMillis(100))
+
+		when:
+		pool.acquire("a", 1024, 3072, stopAction)
+		Thread.sleep(300)
+
+		then:
+		stopped.isEmpty()
+	}
+
+	def "worker is only idle once every user has released it"() {
+		given:
+		def a = pool.acquire("a", 1024, 3072, stopAction)
+		pool.acquire("a", 1024, 3072, stopAction)
+
+		when:
+		pool.release(a, Duration.ofMillis(10))
+		Thread.sleep(200)
+
+		then:
+		stopped.isEmpty()
+
+		when:
+		pool.release(a, Duration.ofMillis(10))
+
+		then:
+		new PollingConditions(timeout: 5).eventually {
+			assert stopped == ["warm-a"]
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.ZipReprocessorUtil
+
+class ZipReprocessorUtilTest extends Specification {
+	def "reproducible output"() {
+		given:
+		def first = File.createTempFile("loom-zip-test", ".zip")
+		def second = File.createTempFile("loom-zip-test", ".zip")
+		writeZip(first.toPath(), ["b.txt", "a/stored.txt", "a/c.txt"], 1000000000000L)
+		writeZip(second.toPath(), ["a/c.txt", "b.txt", "a/stored.txt"], 1600000000000L)
+
+		when:
+		ZipReprocessorUtil.reprocessZip(first, true, false)
+		ZipReprocessorUtil.reprocessZip(second, true, false)
+
+		def zipFile = new ZipFile(first)
+		def entries = zipFile.entries().collect { it }
+		def content = entries.collectEntries { [it.name, new String(zipFile.getInputStream(it).bytes, StandardCharsets.UTF_8)] }
+		zipFile.close()
+
+		then:
+		first.bytes == second.bytes
+		entries*.name == [
+			"a/c.txt",
+			"a/stored.txt",
+			"b.txt"
+		]
+		entries.every { it.method == ZipEntry.DEFLATED }
+		content == [
+			"a/c.txt": "a/c.txt".repeat(100),
+			"a/stored.txt": "a/stored.txt".repeat(100),
+			"b.txt": "b.txt".repeat(100)
+		]
+	}
+
+	def "stored entries are kept when timestamps are preserved"() {
+		given:
+		def zip = File.createTempFile("loom-zip-test", ".zip")
+		writeZip(zip.toPath(), ["b.txt", "a/stored.txt"], 1000000000000L)
+
+		when:
+		ZipReprocessorUtil.reprocessZip(zip, true, true)
+
+		def zipFile = new ZipFile(zip)
+		def methods = zipFile.entries().collectEntries { [it.name, it.method] }
+		def content = new String(zipFile.getInputStream(zipFile.getEntry("a/stored.txt")).bytes, StandardCharsets.UTF_8)
+		zipFile.close()
+
+		then:
+		methods == ["a/stored.txt": ZipEntry.STORED, "b.txt": ZipEntry.DEFLATED]
+		content == "a/stored.txt".repeat(100)
+	}
+
+	private static void writeZip(Path path, List<String> names, long time) {
+		new ZipOutputStream(Files.newOutputStream(path)).withCloseable { zip ->
+			names.each { name ->
+				def bytes = name.repeat(100).getBytes(StandardCharsets.UTF_8)
+				def entry = new ZipEntry(name)
+				entry.time = time
+
+				if (name.contains("stored")) {
+					def crc = new CRC32()
+					crc.update(bytes)
+					entry.method = ZipEntry.STORED
+					entry.size = bytes.length
+					entry.compressedSize = bytes.length
+					entry.crc = crc.value
+				}
+
+				zip.putNextEntry(entry)
+				zip.write(bytes)
+				zip.closeEntry()
+			}
+		}
+	}
+}
@@ -38,6 +38,7 @@ import net.fabricmc.loom.util.download.Download
 import net.fabricmc.loom.util.download.DownloadException
 import net.fabricmc.loom.util.download.DownloadExecutor
 import net.fabricmc.loom.util.download.DownloadProgressListener
+import net.fabricmc.loom.util.download.DownloadTransport
 
 class DownloadFileTest extends DownloadTest {
 	@IgnoreIf({ os.windows }) // Requires admin on windows.
@@ -302,6 +303,28 @@ class DownloadFileTest extends DownloadTest {
 		Files.readString(dir.resolve("4.txt")) == "Hello World"
 	}
 
+	def "File: Shared transport"() {
+		setup:
+		server.get("/sharedTransport") {
+			it.result("Hello World")
+		}
+
+		def dir = File.createTempDir().toPath()
+		def transport = new DownloadTransport(1)
+
+		when:
+		new DownloadExecutor(4).withCloseable {
+			for (i in 0..<8) {
+				Download.create("$PATH/sharedTransport")
+						.transport(transport)
+						.downloadPathAsync(dir.resolve("${i}.txt"), it)
+			}
+		}
+
+		then:
+		(0..<8).every { Files.readString(dir.resolve("${it}.txt")) == "Hello World" }
+	}
+
 	def "File: Async Error"() {
 		setup:
 		server.get("/async2") {
@@ -0,0 +1,115 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.download
+
+import java.nio.file.Files
+import java.security.MessageDigest
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import net.fabricmc.loom.util.Checksum
+import net.fabricmc.loom.util.download.Download
+
+/**
+ * Uses the JDK http server, as it allows the connection to be dropped part way through a response.
+ */
+class DownloadResumeTest extends Specification {
+	@AutoCleanup("stop(0)")
+	HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+
+	byte[] data = new byte[1024 * 1024 * 4]
+	List<String> ranges = []
+	int dropAfter = data.length.intdiv(2)
+
+	def setup() {
+		new Random(42).nextBytes(data)
+
+		server.createContext("/resume") { HttpExchange exchange ->
+			def range = exchange.requestHeaders.getFirst("Range")
+			ranges << range
+			int start = 0
+
+			if (range != null && range.startsWith("bytes=")) {
+				start = Integer.parseInt(range.substring(6, range.length() - 1))
+				exchange.responseHeaders.add("Content-Range", "bytes $start-${data.length - 1}/${data.length}")
+				exchange.sendResponseHeaders(206, data.length - start)
+			} else {
+				exchange.sendResponseHeaders(200, data.length)
+			}
+
+			int end = dropAfter > 0 ? dropAfter : data.length
+			dropAfter = -1
+
+			// Closing the body before all of the content has been sent drops the connection.
+			exchange.responseBody.write(data, start, end - start)
+			exchange.responseBody.close()
+		}
+
+		server.start()
+	}
+
+	def "Resume after dropped connection"() {
+		setup:
+		def output = new File(File.createTempDir(), "client.jar").toPath()
+
+		when:
+		Download.create("http://127.0.0.1:${server.address.port}/resume")
+				.sha1(sha1(data))
+				.size(data.length)
+				.resumable()
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == data
+		ranges == [null, "bytes=${data.length.intdiv(2)}-".toString()]
+		Files.notExists(output.resolveSibling("client.jar.part"))
+	}
+
+	def "Invalid resumed download restarts"() {
+		setup:
+		def output = new File(File.createTempDir(), "client.jar").toPath()
+		// A partial file that does not match the remote content
+		Files.write(output.resolveSibling("client.jar.part"), new byte[1024])
+		dropAfter = -1
+
+		when:
+		Download.create("http://127.0.0.1:${server.address.port}/resume")
+				.sha1(sha1(data))
+				.size(data.length)
+				.resumable()
+				.downloadPath(output)
+
+		then:
+		Files.readAllBytes(output) == data
+		ranges == ["bytes=1024-", null]
+	}
+
+	private static String sha1(byte[] bytes) {
+		return Checksum.toHex(MessageDigest.getInstance("SHA-1").digest(bytes))
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.layeredmappings
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+import net.fabricmc.loom.api.mappings.layered.MappingContext
+import net.fabricmc.loom.api.mappings.layered.MappingLayer
+import net.fabricmc.loom.api.mappings.layered.MappingsNamespace
+import net.fabricmc.loom.api.mappings.layered.spec.FileSpec
+import net.fabricmc.loom.api.mappings.layered.spec.MappingsSpec
+import net.fabricmc.loom.configuration.providers.mappings.InputFilesMappingsSpec
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingSpec
+import net.fabricmc.loom.configuration.providers.mappings.LayeredMappingsProcessor
+import net.fabricmc.mappingio.MappingReader
+import net.fabricmc.mappingio.MappingVisitor
+import net.fabricmc.mappingio.tree.MemoryMappingTree
+
+class LayeredMappingsCacheTest extends LayeredMappingsSpecification {
+	static final String BASE = """tiny\t2\t0\tintermediary\tnamed
+c\tclass_1\tnet/example/Example
+\tm\t()V\tmethod_1\trun
+"""
+
+	static final String ARGS = """tiny\t2\t0\tnamed
+c\tnet/example/Example
+\tm\t(I)V\tcopy
+\t\tp\t1\tcount
+"""
+
+	def "only rebuilds changed layers"() {
+		given:
+		def cacheDir = File.createTempDir().toPath()
+		def base = new CountingSpec(BASE, MappingsNamespace.INTERMEDIARY, "base")
+		def args = new CountingSpec(ARGS, MappingsNamespace.NAMED, "v1")
+		def argsV2 = new CountingSpec(ARGS.replace("count", "amount"), MappingsNamespace.NAMED, "v2")
+
+		when:
+		def first = getMappings(cacheDir, base, args)
+		def second = getMappings(cacheDir, base, argsV2)
+
+		then:
+		base.visits == 1
+		args.visits == 1
+		argsV2.visits == 1
+		getTiny(first).contains("count")
+		getTiny(second).contains("amount")
+		getTiny(second) == getTiny(getLayeredMappings(base, argsV2))
+	}
+
+	def "rebuilds layers when their input file changes"() {
+		given:
+		def cacheDir = File.createTempDir().toPath()
+		def argsFile = File.createTempFile("args", ".tiny").toPath()
+		def base = new CountingSpec(BASE, MappingsNamespace.INTERMEDIARY, "base")
+		def args = new FileCountingSpec(argsFile)
+
+		when:
+		argsFile.text = ARGS
+		def first = getMappings(cacheDir, base, args)
+		argsFile.text = ARGS.replace("count", "amount")
+		def second = getMappings(cacheDir, base, args)
+
+		then:
+		base.visits == 1
+		args.visits == 2
+		getTiny(first).contains("count")
+		getTiny(second).contains("amount")
+	}
+
+	MemoryMappingTree getMappings(Path cacheDir, MappingsSpec<? extends MappingLayer>... specs) {
+		LayeredMappingSpec spec = new LayeredMappingSpec(specs.toList())
+		LayeredMappingsProcessor processor = new LayeredMappingsProcessor(spec)
+		return processor.getMappings(processor.resolveLayers(mappingContext), cacheDir, mappingContext)
+	}
+
+	static class CountingSpec implements MappingsSpec<MappingLayer> {
+		final String mappings
+		final MappingsNamespace namespace
+		final String version
+		int visits = 0
+
+		CountingSpec(String mappings, MappingsNamespace namespace, String version) {
+			this.mappings = mappings
+			this.namespace = namespace
+			this.version = version
+		}
+
+		@Override
+		MappingLayer createLayer(MappingContext context) {
+			return new MappingLayer() {
+				@Override
+				void visit(MappingVisitor mappingVisitor) throws IOException {
+					visits++
+					MappingReader.read(new StringReader(mappings), mappingVisitor)
+				}
+
+				@Override
+				MappingsNamespace getSourceNamespace() {
+					return namespace
+				}
+			}
+		}
+
+		@Override
+		int hashCode() {
+			return Objects.hash(mappings, version)
+		}
+	}
+
+	/**
+	 * A spec with the same hash code whatever the content of its file, like a changing dependency.
+	 */
+	static class FileCountingSpec implements MappingsSpec<MappingLayer>, InputFilesMappingsSpec {
+		final Path file
+		int visits = 0
+
+		FileCountingSpec(Path file) {
+			this.file = file
+		}
+
+		@Override
+		MappingLayer createLayer(MappingContext context) {
+			return new MappingLayer() {
+				@Override
+				void visit(MappingVisitor mappingVisitor) throws IOException {
+					visits++
+					MappingReader.read(Files.newBufferedReader(file), mappingVisitor)
+				}
+
+				@Override
+				MappingsNamespace getSourceNamespace() {
+					return MappingsNamespace.NAMED
+				}
+			}
+		}
+
+		@Override
+		List<FileSpec> inputFiles() {
+			return [{ MappingContext context -> file } as FileSpec]
+		}
+
+		@Override
+		int hashCode() {
+			return 1
+		}
+	}
+}
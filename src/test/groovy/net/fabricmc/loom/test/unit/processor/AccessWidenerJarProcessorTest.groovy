@@ -26,6 +26,7 @@ package net.fabricmc.loom.test.unit.processor
 
 import spock.lang.Specification
 
+import net.fabricmc.loom.api.processor.MinecraftJarProcessor
 import net.fabricmc.loom.api.processor.SpecContext
 import net.fabricmc.loom.configuration.accesswidener.AccessWidenerJarProcessor
 import net.fabricmc.loom.test.util.GradleTestUtil
@@ -85,4 +86,30 @@ class AccessWidenerJarProcessorTest extends Specification {
 		then:
 		spec == null
 	}
+
+	def "Stable cache key"() {
+		given:
+		def specContext = Mock(SpecContext)
+		specContext.modDependencies() >> []
+		def file = new File("src/test/resources/accesswidener/AccessWidenerJarProcessorTest.accesswidener")
+
+		def processor1 = new AccessWidenerJarProcessor("AccessWidener", true, GradleTestUtil.mockRegularFileProperty(file))
+		def processor2 = new AccessWidenerJarProcessor("AccessWidener", true, GradleTestUtil.mockRegularFileProperty(file))
+
+		when:
+		def key1 = cacheKey(processor1.buildSpec(specContext))
+		def key2 = cacheKey(processor2.buildSpec(specContext))
+
+		then:
+		key1.length > 0
+		key1 == key2
+	}
+
+	private static byte[] cacheKey(MinecraftJarProcessor.Spec spec) {
+		def bytes = new ByteArrayOutputStream()
+		new DataOutputStream(bytes).withCloseable {
+			spec.writeCacheKey(it)
+		}
+		return bytes.toByteArray()
+	}
 }
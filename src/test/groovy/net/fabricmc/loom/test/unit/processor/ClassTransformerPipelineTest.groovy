@@ -0,0 +1,96 @@
+/*
+ * This file is part of fabric-loom, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) 2023 FabricMC
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fabricmc.loom.test.unit.processor
+
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.ClassNode
+import spock.lang.Specification
+
+import net.fabricmc.loom.api.processor.MinecraftJarProcessor
+import net.fabricmc.loom.configuration.processors.ClassTransformerPipeline
+import net.fabricmc.loom.util.Constants
+import net.fabricmc.loom.util.ZipUtils
+
+import static net.fabricmc.loom.test.util.ZipTestUtils.createZip
+
+class ClassTransformerPipelineTest extends Specification {
+	def "applies transformers in order in a single pass"() {
+		given:
+		def jar = createZip(["fabric.mod.json": "{}"])
+		ZipUtils.add(jar, "test/A.class", createClass("test/A"))
+		ZipUtils.add(jar, "test/B.class", createClass("test/B"))
+
+		def transformers = [
+			addInterface(["test/A", "test/B"] as Set, "test/First"),
+			addInterface(["test/A", "test/Missing"] as Set, "test/Second")
+		]
+
+		when:
+		def count = ClassTransformerPipeline.apply(jar, transformers)
+
+		then:
+		count == 2
+		readClass(ZipUtils.unpack(jar, "test/A.class")).interfaces == [
+			"test/First",
+			"test/Second"
+		]
+		readClass(ZipUtils.unpack(jar, "test/B.class")).interfaces == ["test/First"]
+	}
+
+	private static byte[] createClass(String name) {
+		def writer = new ClassWriter(0)
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null)
+		writer.visitEnd()
+		return writer.toByteArray()
+	}
+
+	private static ClassNode readClass(byte[] bytes) {
+		def node = new ClassNode()
+		new ClassReader(bytes).accept(node, 0)
+		return node
+	}
+
+	private static MinecraftJarProcessor.ClassTransformer addInterface(Set<String> targets, String iface) {
+		return new MinecraftJarProcessor.ClassTransformer() {
+					@Override
+					Set<String> getTargets() {
+						return targets
+					}
+
+					@Override
+					ClassVisitor createClassVisitor(String className, ClassVisitor classVisitor) {
+						return new ClassVisitor(Constants.ASM_VERSION, classVisitor) {
+									@Override
+									void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+										super.visit(version, access, name, signature, superName, (interfaces + iface) as String[])
+									}
+								}
+					}
+				}
+	}
+}
@@ -29,13 +29,18 @@ import java.nio.file.Files
 import java.nio.file.Path
 import java.util.jar.Attributes
 import java.util.jar.Manifest
+import java.util.zip.ZipFile
 
 import net.fabricmc.loom.util.FileSystemUtil
 
 class ZipTestUtils {
 	static Path createZip(Map<String, String> entries) {
 		def file = Files.createTempFile("loom-test", ".zip")
-		Files.delete(file)
+		return createZip(file, entries)
+	}
+
+	static Path createZip(Path file, Map<String, String> entries) {
+		Files.deleteIfExists(file)
 
 		FileSystemUtil.getJarFileSystem(file, true).withCloseable { zip ->
 			entries.forEach { path, value ->
@@ -49,6 +54,15 @@ class ZipTestUtils {
 		return file
 	}
 
+	/**
+	 * @return the content of each file in the zip, directories are not included
+	 */
+	static Map<String, String> readZip(Path file) {
+		new ZipFile(file.toFile()).withCloseable { zip ->
+			zip.entries().toList().findAll { !it.directory }.collectEntries { [it.name, new String(zip.getInputStream(it).readAllBytes(), StandardCharsets.UTF_8)] }
+		}
+	}
+
 	static String manifest(String key, String value) {
 		def manifest = new Manifest()
 		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0")